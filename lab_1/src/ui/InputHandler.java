@@ -1,6 +1,7 @@
 package ui;
 
 import util.LibraryException;
+import util.ValidationUtils;
 import java.util.Scanner;
 
 public class InputHandler {
@@ -37,18 +38,14 @@ public class InputHandler {
   public static String readIsbn(String prompt) {
     System.out.print(prompt);
     String isbn = scanner.nextLine().trim();
-    if (!isbn.matches("\\d{3}-\\d{10}")) {
-      throw new LibraryException("Invalid ISBN format. Use XXX-XXXXXXXXXX format");
-    }
+    ValidationUtils.validateIsbn(isbn);
     return isbn;
   }
 
   public static String readBorrowerId(String prompt) {
     System.out.print(prompt);
     String id = scanner.nextLine().trim();
-    if (!id.matches("[A-Z]\\d{3}")) {
-      throw new LibraryException("Invalid ID format. Use one uppercase letter followed by 3 digits (e.g., B001)");
-    }
+    ValidationUtils.validateId(id);
     return id;
   }
 }
\ No newline at end of file
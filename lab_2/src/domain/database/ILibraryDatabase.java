@@ -3,6 +3,7 @@ package domain.database;
 import java.util.List;
 
 import domain.models.*;
+import domain.models.enums.BookFormat;
 
 public interface ILibraryDatabase {
   void addBook(Book book);
@@ -23,4 +24,6 @@ public interface ILibraryDatabase {
 
   List<Book> getAllBooks();
 
+  List<Book> findBooksByFormat(BookFormat format);
+
 }
@@ -2,20 +2,28 @@ package domain.database;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import domain.models.Book;
 import domain.models.BookSeries;
 import domain.models.Borrower;
+import domain.models.enums.BookFormat;
 
 public class LibraryDatabase implements ILibraryDatabase {
   private static volatile ILibraryDatabase instance;
   private final List<Book> books;
+  private final Map<BookFormat, List<Book>> booksByFormat;
   private final List<Borrower> borrowers;
   private final List<BookSeries> series;
 
   private LibraryDatabase() {
     books = Collections.synchronizedList(new ArrayList<>());
+    booksByFormat = new EnumMap<>(BookFormat.class);
+    for (BookFormat format : BookFormat.values()) {
+      booksByFormat.put(format, Collections.synchronizedList(new ArrayList<>()));
+    }
     borrowers = Collections.synchronizedList(new ArrayList<>());
     series = Collections.synchronizedList(new ArrayList<>());
   }
@@ -35,6 +43,9 @@ public class LibraryDatabase implements ILibraryDatabase {
 
   public synchronized void addBook(Book book) {
     books.add(book);
+    if (book.getFormat() != null) {
+      booksByFormat.get(book.getFormat()).add(book);
+    }
   }
 
   public synchronized void addBorrower(Borrower borrower) {
@@ -75,6 +86,13 @@ public class LibraryDatabase implements ILibraryDatabase {
     }
   }
 
+  public List<Book> findBooksByFormat(BookFormat format) {
+    List<Book> matches = booksByFormat.get(format);
+    synchronized (matches) {
+      return new ArrayList<>(matches);
+    }
+  }
+
   @Override
   public void addSeries(BookSeries series) {
     this.series.add(series);
@@ -2,6 +2,7 @@ package domain.models;
 
 import java.time.LocalDate;
 
+import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 import util.LibraryException;
 
@@ -63,6 +64,11 @@ public abstract class Book implements ILibraryItem, Cloneable {
     return borrower;
   }
 
+  // Books without a format wrapper have no format
+  public BookFormat getFormat() {
+    return null;
+  }
+
   public String setISBN(String isbn) {
     return this.isbn = isbn;
   }
@@ -1,6 +1,7 @@
 package domain.models.decorators;
 
 import domain.models.Book;
+import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 
 public abstract class BookDecorator extends Book {
@@ -11,6 +12,14 @@ public abstract class BookDecorator extends Book {
     this.book = book;
   }
 
+  public static Book wrap(Book book, BookFormat format) {
+    return switch (format) {
+      case HARDCOVER -> new HardcoverBook(book);
+      case PAPERBACK -> new PaperbackBook(book);
+      case DIGITAL -> new DigitalBook(book);
+    };
+  }
+
   @Override
   public BookType getType() {
     return book.getType();
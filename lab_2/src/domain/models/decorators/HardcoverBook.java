@@ -1,6 +1,7 @@
 package domain.models.decorators;
 
 import domain.models.*;
+import domain.models.enums.BookFormat;
 
 public class HardcoverBook extends BookDecorator {
   private static final double LATE_FEE_MULTIPLIER = 1.5;
@@ -10,6 +11,11 @@ public class HardcoverBook extends BookDecorator {
     super(book);
   }
 
+  @Override
+  public BookFormat getFormat() {
+    return BookFormat.HARDCOVER;
+  }
+
   @Override
   public double calculateLateFee(long daysLate) {
     return super.calculateLateFee(daysLate) * LATE_FEE_MULTIPLIER;
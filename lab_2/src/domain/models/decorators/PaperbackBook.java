@@ -1,6 +1,7 @@
 package domain.models.decorators;
 
 import domain.models.*;
+import domain.models.enums.BookFormat;
 
 public class PaperbackBook extends BookDecorator {
   private static final double LATE_FEE_MULTIPLIER = 1.2;
@@ -10,6 +11,11 @@ public class PaperbackBook extends BookDecorator {
     super(book);
   }
 
+  @Override
+  public BookFormat getFormat() {
+    return BookFormat.PAPERBACK;
+  }
+
   @Override
   public double calculateLateFee(long daysLate) {
     return super.calculateLateFee(daysLate) * LATE_FEE_MULTIPLIER;
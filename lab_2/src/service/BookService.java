@@ -12,6 +12,8 @@ import domain.factory.FictionSection;
 import domain.factory.NonFictionSection;
 import domain.models.Book;
 import domain.models.Borrower;
+import domain.models.decorators.BookDecorator;
+import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 import service.interfaces.IBookService;
 import util.LibraryException;
@@ -32,7 +34,8 @@ public class BookService implements IBookService {
     factories.put(BookType.NON_FICTION, new NonFictionSection());
   }
 
-  public Book addBook(String title, String author, String isbn, int year, BookType type) {
+  public Book addBook(String title, String author, String isbn, int year,
+      BookType type, BookFormat format) {
     ValidationUtils.validateIsbn(isbn);
     ValidationUtils.validateYear(year);
     ValidationUtils.validateName(title);
@@ -47,7 +50,7 @@ public class BookService implements IBookService {
       throw new LibraryException("Unsupported book type: " + type);
     }
 
-    Book book = factory.createBook(title, author, isbn, year);
+    Book book = BookDecorator.wrap(factory.createBook(title, author, isbn, year), format);
     database.addBook(book);
     return book;
   }
@@ -119,6 +122,10 @@ public class BookService implements IBookService {
     return database.getAllBooks();
   }
 
+  public List<Book> findBooksByFormat(BookFormat format) {
+    return database.findBooksByFormat(format);
+  }
+
   public Book createBookCopy(String existingIsbn, String newIsbn, int year) {
     Book existingBook = database.findBookByIsbn(existingIsbn);
     if (existingBook == null) {
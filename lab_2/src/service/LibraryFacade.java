@@ -8,9 +8,6 @@ import domain.models.Book;
 import domain.models.BookSeries;
 import domain.models.Borrower;
 import domain.models.ILibraryItem;
-import domain.models.decorators.DigitalBook;
-import domain.models.decorators.HardcoverBook;
-import domain.models.decorators.PaperbackBook;
 import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 import service.interfaces.IBookService;
@@ -35,13 +32,7 @@ public class LibraryFacade implements ILibraryFacade {
   @Override
   public Book addBook(String title, String author, String isbn, int year,
       BookType type, BookFormat format) {
-    Book baseBook = bookService.addBook(title, author, isbn, year, type);
-
-    return switch (format) {
-      case HARDCOVER -> new HardcoverBook(baseBook);
-      case PAPERBACK -> new PaperbackBook(baseBook);
-      case DIGITAL -> new DigitalBook(baseBook);
-    };
+    return bookService.addBook(title, author, isbn, year, type, format);
   }
 
   @Override
@@ -74,6 +65,11 @@ public class LibraryFacade implements ILibraryFacade {
     return bookService.getAllBooks();
   }
 
+  @Override
+  public List<Book> findBooksByFormat(BookFormat format) {
+    return bookService.findBooksByFormat(format);
+  }
+
   @Override
   public Book findBookByIsbn(String isbn) {
     return bookService.findBookByIsbn(isbn);
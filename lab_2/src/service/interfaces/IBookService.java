@@ -1,12 +1,14 @@
 package service.interfaces;
 
 import domain.models.Book;
+import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 
 import java.util.List;
 
 public interface IBookService {
-  Book addBook(String title, String author, String isbn, int year, BookType type);
+  Book addBook(String title, String author, String isbn, int year,
+      BookType type, BookFormat format);
 
   Book checkoutBook(String isbn, String borrowerId, int loanPeriodDays);
 
@@ -18,5 +20,7 @@ public interface IBookService {
 
   List<Book> getAllBooks();
 
+  List<Book> findBooksByFormat(BookFormat format);
+
   Book createBookCopy(String existingIsbn, String newIsbn, int year);
 }
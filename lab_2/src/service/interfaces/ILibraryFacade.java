@@ -16,6 +16,8 @@ public interface ILibraryFacade {
 
   List<Book> getAllBooks();
 
+  List<Book> findBooksByFormat(BookFormat format);
+
   Book createBookCopy(String existingIsbn, String newIsbn, int year);
 
   BookSeries createSeries(String title);
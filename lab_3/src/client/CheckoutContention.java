@@ -0,0 +1,384 @@
+package client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import domain.database.ConcurrentLibraryDatabase;
+import domain.database.ILibraryDatabase;
+import domain.database.OffHeapLibraryDatabase;
+import domain.models.Book;
+import domain.models.BookSeries;
+import domain.models.Borrower;
+import domain.models.ILibraryItem;
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+import domain.models.states.ILibraryItemState;
+import domain.models.states.LendingContext;
+import service.LibraryFacade;
+import util.LibraryException;
+
+// Races many threads on the same books and checks that loans stay consistent, in
+// both the heap store and the off-heap column store.
+// Directly on the book states, with no locks, exactly one checkout and one return
+// of each book must win, and a series checkout racing checkouts of its members
+// must move every member or none. Through the facade, each book must end up with
+// one borrower, each series with one borrower holding every member, and a
+// borrower racing for many books must stop at the 3-book limit. Exits with
+// status 1 on any violation.
+// Usage: java client.CheckoutContention [books] [threads]
+public class CheckoutContention {
+  private static final int BORROWER_LIMIT = 3;
+  private static final int SERIES_SIZE = 4;
+  private static final int SERIES_ROUNDS = 5;
+  private static final int MEMBER_ATTEMPTS = 100;
+
+  private static final AtomicInteger violations = new AtomicInteger();
+
+  public static void main(String[] args) throws Exception {
+    int bookCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    int threadCount = args.length > 1 ? Integer.parseInt(args[1])
+        : Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    List<Supplier<ILibraryDatabase>> stores =
+        List.of(ConcurrentLibraryDatabase::new, OffHeapLibraryDatabase::new);
+    for (Supplier<ILibraryDatabase> store : stores) {
+      long start = System.nanoTime();
+      ILibraryDatabase database = store.get();
+      raceStates(database, bookCount, threadCount);
+      raceSeries(store.get(), bookCount / SERIES_SIZE, threadCount);
+      raceFacadeCheckouts(store.get(), bookCount, threadCount);
+      raceSeriesCheckouts(store.get(), bookCount / SERIES_SIZE, threadCount);
+      raceBorrowerLimit(store.get(), threadCount);
+      System.out.printf("%s: %d books, %d threads, %.1f s%n", database.getClass().getSimpleName(),
+          bookCount, threadCount, (System.nanoTime() - start) / 1e9);
+    }
+
+    if (violations.get() > 0) {
+      System.out.println("FAILED: " + violations.get() + " violations");
+      System.exit(1);
+    }
+    System.out.println("OK: no violations");
+  }
+
+  // Every thread calls checkOut, then returnItem, on the state it read; only the
+  // compare-and-set on the book decides who wins
+  private static void raceStates(ILibraryDatabase database, int bookCount, int threadCount)
+      throws Exception {
+    LibraryFacade facade = new LibraryFacade(database);
+    addBooks(facade, bookCount);
+    LendingContext lending = facade.getLendingContext();
+    Borrower[] borrowers = new Borrower[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      borrowers[t] = new Borrower(borrowerId(t), "Reader " + t);
+    }
+
+    for (int i = 0; i < bookCount; i++) {
+      Book book = database.findBookByIsbn(isbn(i));
+      AtomicInteger checkouts = new AtomicInteger();
+      AtomicInteger returns = new AtomicInteger();
+      CyclicBarrier checkedOut = new CyclicBarrier(threadCount);
+      race(threadCount, t -> {
+        try {
+          book.getState().checkOut(borrowers[t], 5, lending);
+          checkouts.incrementAndGet();
+        } catch (LibraryException e) {
+          // Another thread checked the book out first
+        }
+        await(checkedOut);
+        try {
+          book.getState().returnItem(lending);
+          returns.incrementAndGet();
+        } catch (LibraryException e) {
+          // Another thread returned the book first
+        }
+      });
+      if (checkouts.get() != 1 || returns.get() != 1) {
+        fail(book.getIsbn() + ": " + checkouts.get() + " checkouts and " + returns.get()
+            + " returns succeeded");
+      }
+      if (!book.getState().isAvailable()) {
+        fail(book.getIsbn() + " is still checked out after its return");
+      }
+    }
+  }
+
+  // Even threads check out the whole series while odd ones check out single members,
+  // directly on the states, then each returns what its side holds. A series
+  // checkout that loses to a member is rolled back member by member
+  private static void raceSeries(ILibraryDatabase database, int seriesCount, int threadCount)
+      throws Exception {
+    LibraryFacade facade = new LibraryFacade(database);
+    addBooks(facade, seriesCount * SERIES_SIZE);
+    LendingContext lending = facade.getLendingContext();
+    // Stored borrowers, since the off-heap store keeps only a borrower's ID per loan
+    Borrower[] borrowers = new Borrower[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      borrowers[t] = facade.addBorrower(borrowerId(t), "Reader " + t);
+    }
+
+    for (int s = 0; s < seriesCount; s++) {
+      String title = "Series " + s;
+      facade.createSeries(title);
+      for (int m = 0; m < SERIES_SIZE; m++) {
+        facade.addBookToSeries(title, isbn(s * SERIES_SIZE + m));
+      }
+      BookSeries series = database.findSeriesByTitle(title);
+      for (int round = 0; round < SERIES_ROUNDS; round++) {
+        raceSeriesRound(series, borrowers, lending);
+      }
+    }
+  }
+
+  private static void raceSeriesRound(BookSeries series, Borrower[] borrowers, LendingContext lending)
+      throws Exception {
+    int threadCount = borrowers.length;
+    List<ILibraryItem> members = series.getItems();
+    AtomicInteger seriesCheckouts = new AtomicInteger();
+    AtomicInteger memberCheckouts = new AtomicInteger();
+    AtomicInteger seriesReturns = new AtomicInteger();
+    AtomicInteger memberReturns = new AtomicInteger();
+    AtomicBoolean seriesStarted = new AtomicBoolean();
+    CyclicBarrier checkedOut = new CyclicBarrier(threadCount,
+        () -> checkSeriesLoans(series, seriesCheckouts.get(), memberCheckouts.get()));
+    race(threadCount, t -> {
+      ILibraryItem item = t % 2 == 0 ? series : members.get(t / 2 % members.size());
+      AtomicInteger checkouts = t % 2 == 0 ? seriesCheckouts : memberCheckouts;
+      AtomicInteger returns = t % 2 == 0 ? seriesReturns : memberReturns;
+      // Member threads wait for a series thread to start and then keep going for
+      // their member, so some land in the middle of the series checkout and force
+      // its rollback
+      int attempts = 1;
+      if (item == series) {
+        seriesStarted.set(true);
+      } else {
+        while (!seriesStarted.get()) {
+          Thread.onSpinWait();
+        }
+        attempts = MEMBER_ATTEMPTS;
+      }
+      for (; attempts > 0; attempts--) {
+        try {
+          item.getState().checkOut(borrowers[t], 5, lending);
+          checkouts.incrementAndGet();
+          break;
+        } catch (LibraryException e) {
+          // The series or one of its members was taken first
+        }
+      }
+      await(checkedOut);
+      // A member lent as part of the series comes back with the series
+      if (item != series && !series.getState().isAvailable()) {
+        return;
+      }
+      try {
+        item.getState().returnItem(lending);
+        returns.incrementAndGet();
+      } catch (LibraryException e) {
+        // Not out, or another thread returned it first
+      }
+    });
+
+    if (seriesReturns.get() != seriesCheckouts.get()
+        || memberReturns.get() != memberCheckouts.get()) {
+      fail(series.getTitle() + ": " + seriesReturns.get() + "/" + seriesCheckouts.get()
+          + " series and " + memberReturns.get() + "/" + memberCheckouts.get()
+          + " member returns succeeded");
+    }
+    checkSeriesLoans(series, 0, 0);
+  }
+
+  // Either the series is out and holds every member, or it is available and
+  // exactly the members won individually are out; the count of available
+  // members must agree with the members themselves
+  private static void checkSeriesLoans(BookSeries series, int seriesCheckouts, int memberCheckouts) {
+    ILibraryItemState seriesState = series.getState();
+    int out = 0;
+    boolean heldBySeriesBorrower = true;
+    for (ILibraryItem member : series.getItems()) {
+      ILibraryItemState state = member.getState();
+      if (!state.isAvailable()) {
+        out++;
+      }
+      heldBySeriesBorrower &= !state.isAvailable() && state.getBorrower() == seriesState.getBorrower();
+    }
+
+    String title = series.getTitle();
+    if (seriesCheckouts > 1 || (seriesCheckouts == 1 && memberCheckouts > 0)) {
+      fail(title + ": " + seriesCheckouts + " series and " + memberCheckouts
+          + " member checkouts succeeded together");
+    } else if (seriesCheckouts == 1 && (seriesState.isAvailable() || !heldBySeriesBorrower)) {
+      fail(title + ": checked out, but not every member went with it");
+    } else if (seriesCheckouts == 0 && (!seriesState.isAvailable() || out != memberCheckouts)) {
+      fail(title + ": " + out + " members out after " + memberCheckouts + " member checkouts");
+    }
+    if (series.getAvailableItemCount() != series.getItems().size() - out) {
+      fail(title + ": available count " + series.getAvailableItemCount() + " but "
+          + (series.getItems().size() - out) + " members are available");
+    }
+  }
+
+  // Each thread is its own borrower and asks for the same book at the same moment
+  private static void raceFacadeCheckouts(ILibraryDatabase database, int bookCount, int threadCount)
+      throws Exception {
+    LibraryFacade facade = new LibraryFacade(database);
+    addBooks(facade, bookCount);
+    for (int t = 0; t < threadCount; t++) {
+      facade.addBorrower(borrowerId(t), "Reader " + t);
+    }
+
+    for (int i = 0; i < bookCount; i++) {
+      String isbn = isbn(i);
+      AtomicInteger winners = new AtomicInteger();
+      race(threadCount, t -> {
+        try {
+          facade.checkoutItem(isbn, borrowerId(t), 5);
+          winners.incrementAndGet();
+        } catch (LibraryException e) {
+          // Another borrower got the book
+        }
+      });
+
+      Book book = database.findBookByIsbn(isbn);
+      int holders = 0;
+      for (Borrower borrower : database.getAllBorrowers()) {
+        holders += (int) borrower.getBorrowedBooks().stream().filter(book::equals).count();
+      }
+      if (winners.get() != 1 || holders != 1 || book.getState().isAvailable()) {
+        fail(isbn + ": " + winners.get() + " winners, " + holders + " borrowers hold it");
+      }
+      facade.returnItem(isbn);
+    }
+  }
+
+  // Each thread is its own borrower and asks for the same series at the same moment
+  private static void raceSeriesCheckouts(ILibraryDatabase database, int seriesCount,
+      int threadCount) throws Exception {
+    LibraryFacade facade = new LibraryFacade(database);
+    addBooks(facade, seriesCount * SERIES_SIZE);
+    for (int t = 0; t < threadCount; t++) {
+      facade.addBorrower(borrowerId(t), "Reader " + t);
+    }
+
+    for (int s = 0; s < seriesCount; s++) {
+      String title = "Series " + s;
+      BookSeries series = facade.createSeries(title);
+      for (int m = 0; m < SERIES_SIZE; m++) {
+        facade.addBookToSeries(title, isbn(s * SERIES_SIZE + m));
+      }
+
+      AtomicInteger winners = new AtomicInteger();
+      race(threadCount, t -> {
+        try {
+          facade.checkoutItem(title, borrowerId(t), 5);
+          winners.incrementAndGet();
+        } catch (LibraryException e) {
+          // Another borrower got the series
+        }
+      });
+
+      Borrower holder = series.getState().getBorrower();
+      int heldMembers = 0;
+      for (ILibraryItem member : series.getItems()) {
+        if (!member.getState().isAvailable() && member.getState().getBorrower() == holder) {
+          heldMembers++;
+        }
+      }
+      if (winners.get() != 1 || holder == null || heldMembers != SERIES_SIZE) {
+        fail(title + ": " + winners.get() + " winners, " + heldMembers + " of " + SERIES_SIZE
+            + " members went with the series");
+      }
+      facade.returnItem(title);
+      for (ILibraryItem member : series.getItems()) {
+        if (!member.getState().isAvailable()) {
+          fail(title + ": a member is still out after the series came back");
+        }
+      }
+    }
+  }
+
+  // One borrower asks for many books at once from every thread
+  private static void raceBorrowerLimit(ILibraryDatabase database, int threadCount) throws Exception {
+    LibraryFacade facade = new LibraryFacade(database);
+    addBooks(facade, threadCount);
+    facade.addBorrower("B001", "Reader");
+
+    for (int round = 0; round < 50; round++) {
+      AtomicInteger winners = new AtomicInteger();
+      race(threadCount, t -> {
+        try {
+          facade.checkoutItem(isbn(t), "B001", 5);
+          winners.incrementAndGet();
+        } catch (LibraryException e) {
+          // The borrower reached the limit
+        }
+      });
+
+      List<Book> borrowed = new ArrayList<>(database.findBorrowerById("B001").getBorrowedBooks());
+      int expected = Math.min(threadCount, BORROWER_LIMIT);
+      if (winners.get() != expected || borrowed.size() != expected) {
+        fail("round " + round + ": " + winners.get() + " checkouts succeeded and the borrower holds "
+            + borrowed.size() + " books, limit " + BORROWER_LIMIT);
+      }
+      for (Book book : borrowed) {
+        facade.returnItem(book.getIsbn());
+      }
+    }
+  }
+
+  private interface Contender {
+    void run(int thread) throws Exception;
+  }
+
+  // Starts every contender at the same barrier and waits for all of them
+  private static void race(int threadCount, Contender contender) throws InterruptedException {
+    CyclicBarrier start = new CyclicBarrier(threadCount);
+    List<Thread> threads = new ArrayList<>(threadCount);
+    for (int t = 0; t < threadCount; t++) {
+      int thread = t;
+      threads.add(new Thread(() -> {
+        try {
+          await(start);
+          contender.run(thread);
+        } catch (Exception e) {
+          fail("contender " + thread + " failed: " + e);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  private static void await(CyclicBarrier barrier) {
+    try {
+      barrier.await();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void addBooks(LibraryFacade facade, int count) {
+    for (int i = 0; i < count; i++) {
+      facade.addBook("Title " + i, "Author", isbn(i), 2000, BookType.FICTION, BookFormat.PAPERBACK);
+    }
+  }
+
+  private static String isbn(int i) {
+    return String.format("123-%010d", i);
+  }
+
+  private static String borrowerId(int t) {
+    return String.format("B%03d", t + 1);
+  }
+
+  private static void fail(String message) {
+    if (violations.incrementAndGet() <= 10) {
+      System.out.println("VIOLATION: " + message);
+    }
+  }
+}
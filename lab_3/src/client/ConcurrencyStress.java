@@ -0,0 +1,174 @@
+package client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import domain.database.ConcurrentLibraryDatabase;
+import domain.database.ILibraryDatabase;
+import domain.models.Book;
+import domain.models.BookSeries;
+import domain.models.Borrower;
+import domain.models.FictionBook;
+import util.LibraryException;
+
+// Runs readers against ConcurrentLibraryDatabase while a writer keeps adding books,
+// once per reader count, and reports read throughput. Along the way it checks that
+// a lookup never returns the wrong book, that a book once added is always found,
+// and that racing adds of one ISBN leave exactly one copy. Exits with status 1 on
+// any violation.
+// Usage: java client.ConcurrencyStress [seconds per round] [max readers]
+public class ConcurrencyStress {
+  private static final int PRELOADED_BOOKS = 100_000;
+
+  private static final AtomicInteger violations = new AtomicInteger();
+
+  public static void main(String[] args) throws Exception {
+    long roundMillis = (args.length > 0 ? Long.parseLong(args[0]) : 2) * 1000;
+    int maxReaders = args.length > 1 ? Integer.parseInt(args[1])
+        : Runtime.getRuntime().availableProcessors();
+
+    checkDuplicateAdds();
+
+    System.out.printf("%-8s %16s %8s %14s%n", "Readers", "Reads/s", "Scaling", "Books added");
+    double singleReader = 0;
+    for (int readers = 1; readers <= maxReaders; readers *= 2) {
+      singleReader = runRound(readers, roundMillis, singleReader);
+    }
+
+    if (violations.get() > 0) {
+      System.out.println("FAILED: " + violations.get() + " violations");
+      System.exit(1);
+    }
+    System.out.println("OK: no violations");
+  }
+
+  // Returns the single-reader throughput, measured in the first round
+  private static double runRound(int readerCount, long roundMillis, double singleReader)
+      throws InterruptedException {
+    ILibraryDatabase database = new ConcurrentLibraryDatabase();
+    for (int i = 0; i < PRELOADED_BOOKS; i++) {
+      database.addBook(book(i));
+    }
+    database.addBorrower(new Borrower("B001", "Reader"));
+    database.addSeries(new BookSeries("Series"));
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicInteger published = new AtomicInteger(PRELOADED_BOOKS);
+    LongAdder reads = new LongAdder();
+    CountDownLatch started = new CountDownLatch(readerCount + 1);
+
+    Thread writer = new Thread(() -> {
+      started.countDown();
+      int next = PRELOADED_BOOKS;
+      while (running.get()) {
+        database.addBook(book(next));
+        published.set(++next);
+      }
+    });
+
+    List<Thread> readers = new ArrayList<>();
+    for (int r = 0; r < readerCount; r++) {
+      int seed = r;
+      readers.add(new Thread(() -> {
+        started.countDown();
+        int i = seed;
+        int lastListSize = 0;
+        while (running.get()) {
+          int known = published.get();
+          int index = (int) ((i * 2_654_435_761L) % known);
+          String isbn = isbn(index);
+          Book found = database.findBookByIsbn(isbn);
+          if (found == null || !found.getIsbn().equals(isbn)) {
+            fail("lookup of " + isbn + " returned " + found);
+          }
+          if (database.findBorrowerById("B001") == null || database.findSeriesByTitle("Series") == null) {
+            fail("borrower or series lookup returned null");
+          }
+          if (++i % 10_000 == 0) {
+            int listSize = database.getAllBooks().size();
+            if (listSize < lastListSize) {
+              fail("book list shrank from " + lastListSize + " to " + listSize);
+            }
+            lastListSize = listSize;
+          }
+          reads.add(3);
+        }
+      }));
+    }
+
+    readers.forEach(Thread::start);
+    writer.start();
+    started.await();
+    long start = System.nanoTime();
+    Thread.sleep(roundMillis);
+    running.set(false);
+    writer.join();
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    List<Book> books = database.getAllBooks();
+    if (books.size() != published.get()) {
+      fail("list holds " + books.size() + " books, writer added " + published.get());
+    }
+    for (Book book : books) {
+      if (database.findBookByIsbn(book.getIsbn()) != book) {
+        fail("index and list disagree on " + book.getIsbn());
+      }
+    }
+    double readsPerSecond = reads.sum() / seconds;
+    double baseline = readerCount == 1 ? readsPerSecond : singleReader;
+    System.out.printf("%-8d %,16.0f %7.2fx %,14d%n", readerCount, readsPerSecond,
+        readsPerSecond / baseline, published.get() - PRELOADED_BOOKS);
+    return baseline;
+  }
+
+  // Every thread adds the same ISBNs; each must end up stored exactly once
+  private static void checkDuplicateAdds() throws InterruptedException {
+    ILibraryDatabase database = new ConcurrentLibraryDatabase();
+    int threadCount = 8;
+    int isbnCount = 10_000;
+    AtomicInteger accepted = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < isbnCount; i++) {
+          try {
+            database.addBook(book(i));
+            accepted.incrementAndGet();
+          } catch (LibraryException e) {
+            // Another thread won this ISBN
+          }
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    int stored = database.getAllBooks().size();
+    if (accepted.get() != isbnCount || stored != isbnCount) {
+      fail("racing adds accepted " + accepted.get() + " and stored " + stored
+          + " books for " + isbnCount + " ISBNs");
+    }
+  }
+
+  private static Book book(int i) {
+    return new FictionBook("Title " + i, "Author " + (i % 1000), isbn(i), 2000);
+  }
+
+  private static String isbn(int i) {
+    return String.format("123-%010d", i);
+  }
+
+  private static void fail(String message) {
+    if (violations.incrementAndGet() <= 10) {
+      System.out.println("VIOLATION: " + message);
+    }
+  }
+}
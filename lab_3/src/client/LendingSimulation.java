@@ -0,0 +1,105 @@
+package client;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import domain.database.ConcurrentLibraryDatabase;
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+import service.LibraryFacade;
+import util.LibraryException;
+import util.SimulationClock;
+
+// Runs months of lending in seconds on a SimulationClock. Each simulated day
+// borrowers check out and return books, some of them late, the due-date sweep
+// runs once, and the notices it produced are collected.
+// Usage: java client.LendingSimulation [days] [borrowers] [books]
+public class LendingSimulation {
+  private static final int LOAN_DAYS = 14;
+  private static final Instant START = Instant.parse("2025-01-01T09:00:00Z");
+
+  public static void main(String[] args) {
+    int days = args.length > 0 ? Integer.parseInt(args[0]) : 180;
+    int borrowerCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    int bookCount = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+
+    SimulationClock clock = new SimulationClock(START, ZoneOffset.UTC);
+    LibraryFacade facade = new LibraryFacade(new ConcurrentLibraryDatabase(), clock);
+    List<String> borrowerIds = new ArrayList<>(borrowerCount);
+    for (int i = 0; i < borrowerCount; i++) {
+      String id = String.format("%c%03d", (char) ('A' + i / 1000), i % 1000);
+      facade.addBorrower(id, "Reader " + i);
+      borrowerIds.add(id);
+    }
+    for (int i = 0; i < bookCount; i++) {
+      facade.addBook("Title " + i, "Author " + i % 100, String.format("123-%010d", i),
+          1950 + i % 70, i % 2 == 0 ? BookType.FICTION : BookType.NON_FICTION, BookFormat.PAPERBACK);
+    }
+
+    // Returns print their late fees; a simulation produces thousands of them
+    PrintStream console = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+    Random random = new Random(42);
+    Map<String, Integer> returnDayByIsbn = new HashMap<>();
+    int checkouts = 0;
+    int returns = 0;
+    long notices = 0;
+    long start = System.nanoTime();
+    try {
+      for (int day = 0; day < days; day++) {
+        List<String> returning = new ArrayList<>();
+        for (Map.Entry<String, Integer> loan : returnDayByIsbn.entrySet()) {
+          if (loan.getValue() == day) {
+            returning.add(loan.getKey());
+          }
+        }
+        for (String isbn : returning) {
+          facade.returnItem(isbn);
+          returnDayByIsbn.remove(isbn);
+          returns++;
+        }
+
+        for (String borrowerId : borrowerIds) {
+          if (random.nextInt(10) >= 3) {
+            continue;
+          }
+          String isbn = String.format("123-%010d", random.nextInt(bookCount));
+          try {
+            facade.checkoutItem(isbn, borrowerId, LOAN_DAYS);
+            // Most books come back on time, some up to a week late
+            returnDayByIsbn.put(isbn, day + 7 + random.nextInt(LOAN_DAYS));
+            checkouts++;
+          } catch (LibraryException e) {
+            // Already out, or the borrower has three books
+          }
+        }
+
+        facade.checkAllDueDates();
+        for (String borrowerId : borrowerIds) {
+          notices += facade.getBorrowerNotifications(borrowerId).size();
+          facade.clearBorrowerNotifications(borrowerId);
+        }
+        clock.advance(Duration.ofDays(1));
+      }
+    } finally {
+      System.setOut(console);
+    }
+
+    System.out.printf("Simulated days:   %,d (%s to %s)%n", days,
+        START.atZone(ZoneOffset.UTC).toLocalDate(),
+        clock.instant().atZone(ZoneOffset.UTC).toLocalDate());
+    System.out.printf("Checkouts:        %,d%n", checkouts);
+    System.out.printf("Returns:          %,d%n", returns);
+    System.out.printf("Notices:          %,d%n", notices);
+    System.out.printf("Wall time:        %.2f s%n", (System.nanoTime() - start) / 1e9);
+  }
+}
@@ -1,17 +1,89 @@
 package client;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import domain.database.ILibraryDatabase;
+import domain.database.LibraryDatabase;
+import domain.database.OffHeapLibraryDatabase;
+import domain.database.snapshot.LibrarySnapshot;
+import domain.database.wal.FsyncPolicy;
+import domain.database.wal.WriteAheadLog;
+import service.JournaledLibraryFacade;
 import service.LibraryFacade;
+import service.ReminderScheduler;
 import service.interfaces.ILibraryFacade;
 import ui.ConsoleUI;
 
 public class LibraryManagementSystem {
+  private static final long SNAPSHOT_INTERVAL_MINUTES = 5;
+  private static final long REMINDER_INTERVAL_SECONDS = 30;
+
   public static void main(String[] args) {
-    ILibraryFacade libraryFacade = new LibraryFacade();
+    Clock clock = Clock.systemDefaultZone();
+    // Run with -Dlibrary.store=offheap to keep the catalog in off-heap columns
+    ILibraryDatabase database = "offheap".equals(System.getProperty("library.store"))
+        ? new OffHeapLibraryDatabase()
+        : LibraryDatabase.getInstance();
+    LibraryFacade coreFacade = new LibraryFacade(database, clock);
+    ILibraryFacade libraryFacade = coreFacade;
+    boolean recovered = false;
+
+    // Run with -Dlibrary.journal=<file> to keep the library across restarts,
+    // or with -Dlibrary.snapshot=<file> to save it periodically instead
+    String journalPath = System.getProperty("library.journal");
+    String snapshotPath = System.getProperty("library.snapshot");
+    if (journalPath != null) {
+      FsyncPolicy policy = FsyncPolicy.valueOf(System.getProperty("library.fsync", "INTERVAL"));
+      WriteAheadLog log = WriteAheadLog.open(Path.of(journalPath), policy);
+      Runtime.getRuntime().addShutdownHook(new Thread(log::close));
+
+      JournaledLibraryFacade journaledFacade = new JournaledLibraryFacade(coreFacade, log, clock);
+      int replayed = journaledFacade.recover();
+      recovered = replayed > 0;
+      if (recovered) {
+        System.out.println("Library restored from journal (" + replayed + " records).");
+      }
+      libraryFacade = journaledFacade;
+    } else if (snapshotPath != null) {
+      Path path = Path.of(snapshotPath);
+      if (Files.exists(path)) {
+        LibrarySnapshot.restore(path, database);
+        recovered = true;
+        System.out.println("Library restored from snapshot.");
+      }
+      scheduleSnapshots(coreFacade, path);
+    }
 
-    LibraryInitializer initializer = new LibraryInitializer(libraryFacade);
-    initializer.initializeWithSampleData();
+    if (!recovered) {
+      LibraryInitializer initializer = new LibraryInitializer(libraryFacade);
+      initializer.initializeWithSampleData();
+    }
+
+    // Reminder and overdue notices are produced in the background, not per menu action
+    ReminderScheduler reminderScheduler = new ReminderScheduler(
+        coreFacade.getLendingContext(),
+        Duration.ofSeconds(Long.getLong("library.reminderIntervalSeconds", REMINDER_INTERVAL_SECONDS)));
+    reminderScheduler.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(reminderScheduler::stop));
 
     ConsoleUI ui = new ConsoleUI(libraryFacade);
     ui.start();
   }
+
+  private static void scheduleSnapshots(LibraryFacade facade, Path path) {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "library-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(() -> facade.writeSnapshot(path),
+        SNAPSHOT_INTERVAL_MINUTES, SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> facade.writeSnapshot(path)));
+  }
 }
@@ -0,0 +1,62 @@
+package client;
+
+import java.lang.ref.Reference;
+
+import domain.factory.BookCreator;
+import domain.factory.FictionSection;
+import domain.models.Book;
+import domain.models.WorkPool;
+import domain.models.enums.BookFormat;
+
+// Reports heap retained per book for a catalog of many copies of few titles, as
+// a bulk import would produce. Every row arrives as fresh Strings. Only the shared
+// layout is measured directly: the per-copy layout is gone from the tree, so its
+// figure is an estimate, the measured books plus separately measured title and
+// author Strings for every copy.
+// Usage: java client.MemoryBenchmark [copyCount] [titleCount]
+public class MemoryBenchmark {
+  public static void main(String[] args) {
+    int copyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    int titleCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+    BookCreator creator = new FictionSection();
+
+    // Shared the way a library database shares the works of the books it stores
+    WorkPool pool = new WorkPool();
+    long baseline = usedHeap();
+    Book[] books = new Book[copyCount];
+    for (int i = 0; i < copyCount; i++) {
+      books[i] = creator.createBook(
+          new String("Title " + (i % titleCount)),
+          new String("Author " + (i % titleCount % 1000)),
+          String.format("123-%010d", i),
+          1900 + i % 120,
+          BookFormat.values()[i % BookFormat.values().length]);
+      books[i].shareWork(pool);
+    }
+    long pooledBytes = usedHeap() - baseline;
+
+    String[] perCopyText = new String[copyCount * 2];
+    for (int i = 0; i < copyCount; i++) {
+      perCopyText[2 * i] = new String("Title " + (i % titleCount));
+      perCopyText[2 * i + 1] = new String("Author " + (i % titleCount % 1000));
+    }
+    long perCopyBytes = usedHeap() - baseline - pooledBytes;
+
+    System.out.printf("Copies:                 %,d%n", books.length);
+    System.out.printf("Distinct works:         %,d%n", pool.size());
+    System.out.printf("Shared work records:    %,d bytes/book (measured)%n", pooledBytes / copyCount);
+    System.out.printf("Per-copy strings:       %,d bytes/book (estimate: measured + %,d for own strings)%n",
+        (pooledBytes + perCopyBytes) / copyCount, perCopyBytes / copyCount);
+    Reference.reachabilityFence(books);
+    Reference.reachabilityFence(perCopyText);
+    Reference.reachabilityFence(pool);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
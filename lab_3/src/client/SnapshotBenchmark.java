@@ -0,0 +1,53 @@
+package client;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import domain.database.ConcurrentLibraryDatabase;
+import domain.database.ILibraryDatabase;
+import domain.database.snapshot.LibrarySnapshot;
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+import service.LibraryFacade;
+import service.interfaces.ILibraryFacade;
+
+// Compares rebuilding a catalog through the facade with restoring it from a snapshot.
+// Usage: java client.SnapshotBenchmark [bookCount]   (1M books needs about -Xmx4g)
+public class SnapshotBenchmark {
+  public static void main(String[] args) throws Exception {
+    int bookCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    Path snapshot = Files.createTempFile("library", ".snapshot");
+
+    ILibraryDatabase source = new ConcurrentLibraryDatabase();
+    ILibraryFacade facade = new LibraryFacade(source);
+    long start = System.nanoTime();
+    facade.addBorrower("B001", "John Doe");
+    for (int i = 0; i < bookCount; i++) {
+      facade.addBook(
+          "Title " + i,
+          "Author " + (i % 1000),
+          String.format("123-%010d", i),
+          1900 + i % 120,
+          i % 2 == 0 ? BookType.FICTION : BookType.NON_FICTION,
+          BookFormat.values()[i % BookFormat.values().length]);
+    }
+    facade.checkoutItem("123-0000000000", "B001", 7);
+    long replayNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    LibrarySnapshot.write(source, snapshot);
+    long writeNanos = System.nanoTime() - start;
+
+    ILibraryDatabase restored = new ConcurrentLibraryDatabase();
+    start = System.nanoTime();
+    LibrarySnapshot.restore(snapshot, restored);
+    long restoreNanos = System.nanoTime() - start;
+
+    System.out.printf("Books:               %,d%n", restored.countBooks());
+    System.out.printf("Snapshot size:       %,d bytes%n", Files.size(snapshot));
+    System.out.printf("Facade replay:       %,d ms%n", replayNanos / 1_000_000);
+    System.out.printf("Snapshot write:      %,d ms%n", writeNanos / 1_000_000);
+    System.out.printf("Snapshot restore:    %,d ms%n", restoreNanos / 1_000_000);
+    Files.delete(snapshot);
+  }
+}
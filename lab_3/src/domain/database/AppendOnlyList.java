@@ -0,0 +1,68 @@
+package domain.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Writers are serialized, readers never lock: an element is stored before the
+// size that exposes it is published, so every reader sees a consistent prefix
+class AppendOnlyList<T> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private volatile Object[] elements = new Object[INITIAL_CAPACITY];
+  private volatile int size;
+
+  public synchronized void add(T element) {
+    Object[] current = elements;
+    if (size == current.length) {
+      current = Arrays.copyOf(current, current.length * 2);
+      elements = current;
+    }
+    current[size] = element;
+    size = size + 1;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return (T) elements[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<T> range(int offset, int limit) {
+    int count = size;
+    Object[] current = elements;
+    int end = (int) Math.min(count, (long) offset + limit);
+    List<T> page = new ArrayList<>(Math.max(0, end - offset));
+    for (int i = offset; i < end; i++) {
+      page.add((T) current[i]);
+    }
+    return page;
+  }
+
+  @SuppressWarnings("unchecked")
+  public Stream<T> stream() {
+    int count = size;
+    Object[] current = elements;
+    return IntStream.range(0, count).mapToObj(i -> (T) current[i]);
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<T> snapshot() {
+    int count = size;
+    Object[] current = elements;
+    List<T> copy = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      copy.add((T) current[i]);
+    }
+    return copy;
+  }
+}
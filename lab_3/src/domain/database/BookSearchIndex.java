@@ -0,0 +1,186 @@
+package domain.database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import domain.models.Book;
+
+// Inverted index over title, author and ISBN. NGRAM mode keeps the substring
+// semantics of a plain scan (candidates are verified), TOKEN mode matches whole words
+public class BookSearchIndex {
+  public enum Mode {
+    TOKEN,
+    NGRAM
+  }
+
+  private static final int GRAM_SIZE = 3;
+
+  private final Mode mode;
+  private final List<Book> documents;
+  private final Map<Book, Integer> documentIds;
+  private final Map<String, PostingList> postings;
+  private final ReadWriteLock lock;
+
+  public BookSearchIndex(Mode mode) {
+    this.mode = mode;
+    this.documents = new ArrayList<>();
+    this.documentIds = new IdentityHashMap<>();
+    this.postings = new HashMap<>();
+    this.lock = new ReentrantReadWriteLock();
+  }
+
+  public void add(Book book) {
+    lock.writeLock().lock();
+    try {
+      int id = documents.size();
+      documents.add(book);
+      documentIds.put(book, id);
+      for (String key : keysOf(book.getTitle(), book.getAuthor(), book.getIsbn())) {
+        postings.computeIfAbsent(key, k -> new PostingList()).add(id);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void reindex(String previousIsbn, Book book) {
+    lock.writeLock().lock();
+    try {
+      Integer id = documentIds.get(book);
+      if (id == null) {
+        return;
+      }
+      Set<String> previousKeys = keysOf(book.getTitle(), book.getAuthor(), previousIsbn);
+      Set<String> currentKeys = keysOf(book.getTitle(), book.getAuthor(), book.getIsbn());
+      for (String key : previousKeys) {
+        if (!currentKeys.contains(key)) {
+          postings.get(key).remove(id);
+        }
+      }
+      for (String key : currentKeys) {
+        if (!previousKeys.contains(key)) {
+          postings.computeIfAbsent(key, k -> new PostingList()).add(id);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public List<Book> search(String searchTerm) {
+    return search(searchTerm, 0, Integer.MAX_VALUE);
+  }
+
+  // Stops as soon as the requested page is filled instead of collecting every match
+  public List<Book> search(String searchTerm, int offset, int limit) {
+    String term = searchTerm.toLowerCase();
+    Set<String> keys = new HashSet<>();
+    collectKeys(term, keys);
+
+    lock.readLock().lock();
+    try {
+      if (keys.isEmpty()) {
+        return scan(searchTerm, term, offset, limit);
+      }
+
+      List<PostingList> lists = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        PostingList list = postings.get(key);
+        if (list == null || list.size() == 0) {
+          return new ArrayList<>();
+        }
+        lists.add(list);
+      }
+      lists.sort(Comparator.comparingInt(PostingList::size));
+
+      PostingList smallest = lists.get(0);
+      List<Book> result = new ArrayList<>();
+      int skipped = 0;
+      for (int i = 0; i < smallest.size() && result.size() < limit; i++) {
+        int id = smallest.get(i);
+        if (!inAll(lists, id)) {
+          continue;
+        }
+        Book book = documents.get(id);
+        if (mode == Mode.TOKEN || matches(book, searchTerm, term)) {
+          if (skipped < offset) {
+            skipped++;
+          } else {
+            result.add(book);
+          }
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<Book> scan(String searchTerm, String term, int offset, int limit) {
+    List<Book> result = new ArrayList<>();
+    int skipped = 0;
+    for (int i = 0; i < documents.size() && result.size() < limit; i++) {
+      Book book = documents.get(i);
+      if (!matches(book, searchTerm, term)) {
+        continue;
+      }
+      if (skipped < offset) {
+        skipped++;
+      } else {
+        result.add(book);
+      }
+    }
+    return result;
+  }
+
+  private static boolean matches(Book book, String searchTerm, String term) {
+    return book.getTitle().toLowerCase().contains(term) ||
+        book.getAuthor().toLowerCase().contains(term) ||
+        book.getIsbn().contains(searchTerm);
+  }
+
+  private static boolean inAll(List<PostingList> lists, int id) {
+    for (int i = 1; i < lists.size(); i++) {
+      if (!lists.get(i).contains(id)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Set<String> keysOf(String title, String author, String isbn) {
+    Set<String> keys = new HashSet<>();
+    collectKeys(title.toLowerCase(), keys);
+    collectKeys(author.toLowerCase(), keys);
+    collectKeys(isbn.toLowerCase(), keys);
+    return keys;
+  }
+
+  private void collectKeys(String text, Set<String> keys) {
+    if (mode == Mode.NGRAM) {
+      for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+        keys.add(text.substring(i, i + GRAM_SIZE));
+      }
+      return;
+    }
+
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        keys.add(text.substring(start, i));
+        start = -1;
+      }
+    }
+  }
+}
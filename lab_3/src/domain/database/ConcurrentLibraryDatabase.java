@@ -0,0 +1,193 @@
+package domain.database;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import domain.models.Book;
+import domain.models.BookSeries;
+import domain.models.Borrower;
+import domain.models.WorkPool;
+import domain.models.enums.BookFormat;
+import domain.models.states.DueDateQueue;
+import util.LibraryException;
+
+// ISBN, borrower and series lookups and the listings never take a lock, so
+// readers keep going while books, borrowers or series are being added. Searches
+// share the search index's read lock with each other and only wait on an insert
+public class ConcurrentLibraryDatabase implements ILibraryDatabase {
+  private final AppendOnlyList<Book> books;
+  private final AppendOnlyList<Borrower> borrowers;
+  private final AppendOnlyList<BookSeries> series;
+  private final Map<String, Book> booksByIsbn;
+  private final Map<BookFormat, AppendOnlyList<Book>> booksByFormat;
+  private final Map<String, Borrower> borrowersById;
+  private final Map<String, BookSeries> seriesByTitle;
+  private final BookSearchIndex searchIndex;
+  private final PrefixIndex prefixIndex;
+  private final DueDateQueue dueDateQueue;
+  private final WorkPool workPool;
+
+  public ConcurrentLibraryDatabase() {
+    this(BookSearchIndex.Mode.NGRAM);
+  }
+
+  public ConcurrentLibraryDatabase(BookSearchIndex.Mode searchMode) {
+    books = new AppendOnlyList<>();
+    borrowers = new AppendOnlyList<>();
+    series = new AppendOnlyList<>();
+    booksByIsbn = new ConcurrentHashMap<>();
+    booksByFormat = new EnumMap<>(BookFormat.class);
+    for (BookFormat format : BookFormat.values()) {
+      booksByFormat.put(format, new AppendOnlyList<>());
+    }
+    borrowersById = new ConcurrentHashMap<>();
+    seriesByTitle = new ConcurrentHashMap<>();
+    searchIndex = new BookSearchIndex(searchMode);
+    prefixIndex = new PrefixIndex();
+    dueDateQueue = new DueDateQueue();
+    workPool = new WorkPool();
+  }
+
+  @Override
+  public void addBook(Book book) {
+    book.shareWork(workPool);
+    // Claiming the ISBN first means only one of two racing adds reaches the list
+    if (booksByIsbn.putIfAbsent(book.getIsbn(), book) != null) {
+      throw new LibraryException("Book with ISBN " + book.getIsbn() + " already exists");
+    }
+    store(book);
+  }
+
+  private void store(Book book) {
+    books.add(book);
+    if (book.getFormat() != null) {
+      booksByFormat.get(book.getFormat()).add(book);
+    }
+    searchIndex.add(book);
+    prefixIndex.add(book.getTitle());
+    prefixIndex.add(book.getAuthor());
+    book.setIsbnChangeListener(this::reindexBook);
+  }
+
+  // Every ISBN is claimed before any book is listed, and a failed claim gives back
+  // the ones already taken, so a rejected batch leaves nothing behind
+  @Override
+  public void addBooks(List<Book> newBooks) {
+    newBooks.forEach(book -> book.shareWork(workPool));
+    for (int i = 0; i < newBooks.size(); i++) {
+      Book book = newBooks.get(i);
+      if (booksByIsbn.putIfAbsent(book.getIsbn(), book) != null) {
+        for (int j = 0; j < i; j++) {
+          booksByIsbn.remove(newBooks.get(j).getIsbn(), newBooks.get(j));
+        }
+        throw new LibraryException("Book with ISBN " + book.getIsbn() + " already exists");
+      }
+    }
+    for (Book book : newBooks) {
+      store(book);
+    }
+  }
+
+  private void reindexBook(String previousIsbn, Book book) {
+    booksByIsbn.remove(previousIsbn, book);
+    booksByIsbn.putIfAbsent(book.getIsbn(), book);
+    searchIndex.reindex(previousIsbn, book);
+  }
+
+  @Override
+  public void addBorrower(Borrower borrower) {
+    if (borrowersById.putIfAbsent(borrower.getId(), borrower) == null) {
+      borrowers.add(borrower);
+    }
+  }
+
+  @Override
+  public void addSeries(BookSeries newSeries) {
+    if (seriesByTitle.putIfAbsent(newSeries.getTitle(), newSeries) == null) {
+      series.add(newSeries);
+      prefixIndex.add(newSeries.getTitle());
+    }
+  }
+
+  @Override
+  public Book findBookByIsbn(String isbn) {
+    if (isbn == null) {
+      return null;
+    }
+    return booksByIsbn.get(isbn);
+  }
+
+  @Override
+  public BookSeries findSeriesByTitle(String title) {
+    if (title == null) {
+      return null;
+    }
+    return seriesByTitle.get(title);
+  }
+
+  @Override
+  public List<BookSeries> getAllSeries() {
+    return series.snapshot();
+  }
+
+  @Override
+  public Borrower findBorrowerById(String id) {
+    if (id == null) {
+      return null;
+    }
+    return borrowersById.get(id);
+  }
+
+  @Override
+  public List<Borrower> getAllBorrowers() {
+    return borrowers.snapshot();
+  }
+
+  @Override
+  public List<Book> searchBooks(String searchTerm) {
+    return searchIndex.search(searchTerm);
+  }
+
+  @Override
+  public List<Book> searchBooks(String searchTerm, int offset, int limit) {
+    return searchIndex.search(searchTerm, offset, limit);
+  }
+
+  @Override
+  public List<Book> getAllBooks() {
+    return books.snapshot();
+  }
+
+  @Override
+  public List<Book> findBooksByFormat(BookFormat format) {
+    return booksByFormat.get(format).snapshot();
+  }
+
+  @Override
+  public int countBooks() {
+    return books.size();
+  }
+
+  @Override
+  public List<Book> getBooks(int offset, int limit) {
+    return books.range(offset, limit);
+  }
+
+  @Override
+  public Stream<Book> streamBooks() {
+    return books.stream();
+  }
+
+  @Override
+  public List<String> completePrefix(String prefix, int limit) {
+    return prefixIndex.complete(prefix, limit);
+  }
+
+  @Override
+  public DueDateQueue getDueDateQueue() {
+    return dueDateQueue;
+  }
+}
@@ -1,12 +1,20 @@
 package domain.database;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import domain.models.*;
+import domain.models.enums.BookFormat;
+import domain.models.states.DueDateQueue;
 
 public interface ILibraryDatabase {
+  // Rejects a book whose ISBN is already stored with a LibraryException
   void addBook(Book book);
 
+  // Stores every book or none: a batch that repeats an ISBN or names one already
+  // stored is rejected with a LibraryException
+  void addBooks(List<Book> books);
+
   void addBorrower(Borrower borrower);
 
   void addSeries(BookSeries series);
@@ -19,8 +27,25 @@ public interface ILibraryDatabase {
 
   Borrower findBorrowerById(String id);
 
+  List<Borrower> getAllBorrowers();
+
   List<Book> searchBooks(String searchTerm);
 
+  List<Book> searchBooks(String searchTerm, int offset, int limit);
+
   List<Book> getAllBooks();
 
+  List<Book> findBooksByFormat(BookFormat format);
+
+  int countBooks();
+
+  List<Book> getBooks(int offset, int limit);
+
+  Stream<Book> streamBooks();
+
+  List<String> completePrefix(String prefix, int limit);
+
+  // Loans on this database's items, ordered by due date
+  DueDateQueue getDueDateQueue();
+
 }
@@ -0,0 +1,153 @@
+package domain.database;
+
+import java.util.concurrent.locks.StampedLock;
+
+// Open-addressing map from primitive int keys to non-null values, with linear
+// probing and backward-shift removal. Lookups allocate nothing and an entry costs
+// one int and one reference. Writes take a write lock; get() probes without
+// locking and falls back to the read lock only if a write overlapped it
+class IntObjectHashMap<V> {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private final StampedLock lock = new StampedLock();
+  private Table table;
+  private int size;
+
+  IntObjectHashMap() {
+    table = new Table(INITIAL_CAPACITY);
+  }
+
+  public V get(int key) {
+    long stamp = lock.tryOptimisticRead();
+    V value = find(table, key);
+    if (lock.validate(stamp)) {
+      return value;
+    }
+    stamp = lock.readLock();
+    try {
+      return find(table, key);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Returns the value already stored under the key, or null if the new value was added
+  @SuppressWarnings("unchecked")
+  public V putIfAbsent(int key, V value) {
+    long stamp = lock.writeLock();
+    try {
+      Table t = table;
+      int slot = t.slot(key);
+      while (t.values[slot] != null) {
+        if (t.keys[slot] == key) {
+          return (V) t.values[slot];
+        }
+        slot = (slot + 1) & t.mask;
+      }
+      t.keys[slot] = key;
+      t.values[slot] = value;
+      if (++size > t.keys.length * LOAD_FACTOR) {
+        table = resize(t, t.keys.length * 2);
+      }
+      return null;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // Removes the entry only if it currently maps to this exact value
+  public boolean remove(int key, V value) {
+    long stamp = lock.writeLock();
+    try {
+      Table t = table;
+      int index = t.indexOf(key);
+      if (index < 0 || t.values[index] != value) {
+        return false;
+      }
+      removeAt(t, index);
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private V find(Table t, int key) {
+    int index = t.indexOf(key);
+    return index < 0 ? null : (V) t.values[index];
+  }
+
+  // Closes the gap by pulling back later entries of the same probe run
+  private void removeAt(Table t, int index) {
+    int gap = index;
+    int slot = (gap + 1) & t.mask;
+    while (t.values[slot] != null) {
+      int home = t.slot(t.keys[slot]);
+      if (((slot - home) & t.mask) >= ((slot - gap) & t.mask)) {
+        t.keys[gap] = t.keys[slot];
+        t.values[gap] = t.values[slot];
+        gap = slot;
+      }
+      slot = (slot + 1) & t.mask;
+    }
+    t.values[gap] = null;
+    size--;
+  }
+
+  // Fills a new table completely before it replaces the old one, which is left
+  // untouched for any probe still reading it
+  private static Table resize(Table old, int capacity) {
+    Table t = new Table(capacity);
+    for (int i = 0; i < old.keys.length; i++) {
+      if (old.values[i] != null) {
+        int slot = t.slot(old.keys[i]);
+        while (t.values[slot] != null) {
+          slot = (slot + 1) & t.mask;
+        }
+        t.keys[slot] = old.keys[i];
+        t.values[slot] = old.values[i];
+      }
+    }
+    return t;
+  }
+
+  // The arrays and mask are replaced together, so a probe never mixes two sizes,
+  // and at most half the slots are used, so every probe reaches an empty slot
+  private static final class Table {
+    private final int[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    private Table(int capacity) {
+      keys = new int[capacity];
+      values = new Object[capacity];
+      mask = capacity - 1;
+    }
+
+    private int indexOf(int key) {
+      int slot = slot(key);
+      while (values[slot] != null) {
+        if (keys[slot] == key) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+      }
+      return -1;
+    }
+
+    private int slot(int key) {
+      int hash = key * 0x9E3779B9;
+      return (hash ^ (hash >>> 16)) & mask;
+    }
+  }
+}
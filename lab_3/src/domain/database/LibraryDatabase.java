@@ -2,22 +2,53 @@ package domain.database;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 import domain.models.Book;
 import domain.models.BookSeries;
 import domain.models.Borrower;
+import domain.models.WorkPool;
+import domain.models.enums.BookFormat;
+import domain.models.states.DueDateQueue;
+import util.KeyCodec;
+import util.LibraryException;
 
 public class LibraryDatabase implements ILibraryDatabase {
   private static volatile ILibraryDatabase instance;
   private final List<Book> books;
+  private final LongObjectHashMap<Book> booksByIsbn;
+  private final IntObjectHashMap<Borrower> borrowersById;
+  private final Map<BookFormat, List<Book>> booksByFormat;
+  private final BookSearchIndex searchIndex;
+  private final PrefixIndex prefixIndex;
   private final List<Borrower> borrowers;
   private final List<BookSeries> series;
+  private final Map<String, BookSeries> seriesByTitle;
+  private final DueDateQueue dueDateQueue;
+  private final WorkPool workPool;
 
   private LibraryDatabase() {
     books = Collections.synchronizedList(new ArrayList<>());
+    booksByIsbn = new LongObjectHashMap<>();
+    borrowersById = new IntObjectHashMap<>();
+    booksByFormat = new EnumMap<>(BookFormat.class);
+    for (BookFormat format : BookFormat.values()) {
+      booksByFormat.put(format, Collections.synchronizedList(new ArrayList<>()));
+    }
+    searchIndex = new BookSearchIndex(BookSearchIndex.Mode.NGRAM);
+    prefixIndex = new PrefixIndex();
     borrowers = Collections.synchronizedList(new ArrayList<>());
     series = Collections.synchronizedList(new ArrayList<>());
+    seriesByTitle = new ConcurrentHashMap<>();
+    dueDateQueue = new DueDateQueue();
+    workPool = new WorkPool();
   }
 
   public static ILibraryDatabase getInstance() {
@@ -34,38 +65,92 @@ public class LibraryDatabase implements ILibraryDatabase {
   }
 
   public synchronized void addBook(Book book) {
+    book.shareWork(workPool);
+    if (booksByIsbn.putIfAbsent(isbnKey(book.getIsbn()), book) != null) {
+      throw new LibraryException("Book with ISBN " + book.getIsbn() + " already exists");
+    }
     books.add(book);
+    if (book.getFormat() != null) {
+      booksByFormat.get(book.getFormat()).add(book);
+    }
+    searchIndex.add(book);
+    prefixIndex.add(book.getTitle());
+    prefixIndex.add(book.getAuthor());
+    book.setIsbnChangeListener(this::reindexBook);
+  }
+
+  @Override
+  public synchronized void addBooks(List<Book> newBooks) {
+    Set<String> batchIsbns = new HashSet<>();
+    for (Book book : newBooks) {
+      String isbn = book.getIsbn();
+      if (!batchIsbns.add(isbn) || booksByIsbn.get(isbnKey(isbn)) != null) {
+        throw new LibraryException("Book with ISBN " + isbn + " already exists");
+      }
+    }
+    for (Book book : newBooks) {
+      addBook(book);
+    }
+  }
+
+  private synchronized void reindexBook(String previousIsbn, Book book) {
+    long previousKey = KeyCodec.encodeIsbn(previousIsbn);
+    if (previousKey != KeyCodec.INVALID_ISBN) {
+      booksByIsbn.remove(previousKey, book);
+    }
+    indexIsbn(book);
+    searchIndex.reindex(previousIsbn, book);
+  }
+
+  // ISBNs and borrower IDs are indexed by their packed form. A book must have a
+  // well-formed ISBN to be stored; malformed borrower IDs and renumbered ISBNs,
+  // which the services reject anyway, are not indexed
+  private static long isbnKey(String isbn) {
+    long key = KeyCodec.encodeIsbn(isbn);
+    if (key == KeyCodec.INVALID_ISBN) {
+      throw new LibraryException("Cannot store a book with ISBN " + isbn);
+    }
+    return key;
+  }
+
+  private void indexIsbn(Book book) {
+    long key = KeyCodec.encodeIsbn(book.getIsbn());
+    if (key != KeyCodec.INVALID_ISBN) {
+      booksByIsbn.putIfAbsent(key, book);
+    }
   }
 
   public synchronized void addBorrower(Borrower borrower) {
     borrowers.add(borrower);
+    int key = KeyCodec.encodeBorrowerId(borrower.getId());
+    if (key != KeyCodec.INVALID_BORROWER_ID) {
+      borrowersById.putIfAbsent(key, borrower);
+    }
   }
 
   public Book findBookByIsbn(String isbn) {
-    synchronized (books) {
-      return books.stream()
-          .filter(book -> book.getIsbn().equals(isbn))
-          .findFirst()
-          .orElse(null);
-    }
+    long key = KeyCodec.encodeIsbn(isbn);
+    return key == KeyCodec.INVALID_ISBN ? null : booksByIsbn.get(key);
   }
 
   public List<Book> searchBooks(String searchTerm) {
-    synchronized (books) {
-      return books.stream()
-          .filter(book -> book.getTitle().toLowerCase().contains(searchTerm.toLowerCase()) ||
-              book.getAuthor().toLowerCase().contains(searchTerm.toLowerCase()) ||
-              book.getIsbn().contains(searchTerm))
-          .collect(Collectors.toList());
-    }
+    return searchIndex.search(searchTerm);
+  }
+
+  @Override
+  public List<Book> searchBooks(String searchTerm, int offset, int limit) {
+    return searchIndex.search(searchTerm, offset, limit);
   }
 
   public Borrower findBorrowerById(String id) {
+    int key = KeyCodec.encodeBorrowerId(id);
+    return key == KeyCodec.INVALID_BORROWER_ID ? null : borrowersById.get(key);
+  }
+
+  @Override
+  public List<Borrower> getAllBorrowers() {
     synchronized (borrowers) {
-      return borrowers.stream()
-          .filter(b -> b.getId().equals(id))
-          .findFirst()
-          .orElse(null);
+      return new ArrayList<>(borrowers);
     }
   }
 
@@ -75,19 +160,49 @@ public class LibraryDatabase implements ILibraryDatabase {
     }
   }
 
+  @Override
+  public List<Book> findBooksByFormat(BookFormat format) {
+    List<Book> matches = booksByFormat.get(format);
+    synchronized (matches) {
+      return new ArrayList<>(matches);
+    }
+  }
+
+  @Override
+  public int countBooks() {
+    return books.size();
+  }
+
+  @Override
+  public List<Book> getBooks(int offset, int limit) {
+    synchronized (books) {
+      int end = (int) Math.min(books.size(), (long) offset + limit);
+      if (offset >= end) {
+        return new ArrayList<>();
+      }
+      return new ArrayList<>(books.subList(offset, end));
+    }
+  }
+
+  // Books are only ever appended, so indexing up to the size seen at call time is safe
+  @Override
+  public Stream<Book> streamBooks() {
+    return IntStream.range(0, books.size()).mapToObj(books::get);
+  }
+
   @Override
   public void addSeries(BookSeries series) {
     this.series.add(series);
+    seriesByTitle.putIfAbsent(series.getTitle(), series);
+    prefixIndex.add(series.getTitle());
   }
 
   @Override
   public BookSeries findSeriesByTitle(String title) {
-    synchronized (series) {
-      return series.stream()
-          .filter(s -> s.getTitle().equals(title))
-          .findFirst()
-          .orElse(null);
+    if (title == null) {
+      return null;
     }
+    return seriesByTitle.get(title);
   }
 
   @Override
@@ -96,4 +211,14 @@ public class LibraryDatabase implements ILibraryDatabase {
       return new ArrayList<>(series);
     }
   }
-}
\ No newline at end of file
+
+  @Override
+  public List<String> completePrefix(String prefix, int limit) {
+    return prefixIndex.complete(prefix, limit);
+  }
+
+  @Override
+  public DueDateQueue getDueDateQueue() {
+    return dueDateQueue;
+  }
+}
@@ -0,0 +1,153 @@
+package domain.database;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+// Open-addressing map from primitive long keys to non-negative int values, laid
+// out and locked like LongObjectHashMap but with no objects at all
+class LongIntHashMap {
+  static final int NO_VALUE = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private final StampedLock lock = new StampedLock();
+  private Table table;
+  private int size;
+
+  LongIntHashMap() {
+    table = new Table(INITIAL_CAPACITY);
+  }
+
+  public int get(long key) {
+    long stamp = lock.tryOptimisticRead();
+    int value = find(table, key);
+    if (lock.validate(stamp)) {
+      return value;
+    }
+    stamp = lock.readLock();
+    try {
+      return find(table, key);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Returns the value already stored under the key, or NO_VALUE if the new value was added
+  public int putIfAbsent(long key, int value) {
+    long stamp = lock.writeLock();
+    try {
+      Table t = table;
+      int slot = t.slot(key);
+      while (t.values[slot] != NO_VALUE) {
+        if (t.keys[slot] == key) {
+          return t.values[slot];
+        }
+        slot = (slot + 1) & t.mask;
+      }
+      t.keys[slot] = key;
+      t.values[slot] = value;
+      if (++size > t.keys.length * LOAD_FACTOR) {
+        table = resize(t, t.keys.length * 2);
+      }
+      return NO_VALUE;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // Removes the entry only if it currently maps to this value
+  public boolean remove(long key, int value) {
+    long stamp = lock.writeLock();
+    try {
+      Table t = table;
+      int index = t.indexOf(key);
+      if (index < 0 || t.values[index] != value) {
+        return false;
+      }
+      removeAt(t, index);
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private int find(Table t, long key) {
+    int index = t.indexOf(key);
+    return index < 0 ? NO_VALUE : t.values[index];
+  }
+
+  // Closes the gap by pulling back later entries of the same probe run
+  private void removeAt(Table t, int index) {
+    int gap = index;
+    int slot = (gap + 1) & t.mask;
+    while (t.values[slot] != NO_VALUE) {
+      int home = t.slot(t.keys[slot]);
+      if (((slot - home) & t.mask) >= ((slot - gap) & t.mask)) {
+        t.keys[gap] = t.keys[slot];
+        t.values[gap] = t.values[slot];
+        gap = slot;
+      }
+      slot = (slot + 1) & t.mask;
+    }
+    t.values[gap] = NO_VALUE;
+    size--;
+  }
+
+  // Fills a new table completely before it replaces the old one, which is left
+  // untouched for any probe still reading it
+  private static Table resize(Table old, int capacity) {
+    Table t = new Table(capacity);
+    for (int i = 0; i < old.keys.length; i++) {
+      if (old.values[i] != NO_VALUE) {
+        int slot = t.slot(old.keys[i]);
+        while (t.values[slot] != NO_VALUE) {
+          slot = (slot + 1) & t.mask;
+        }
+        t.keys[slot] = old.keys[i];
+        t.values[slot] = old.values[i];
+      }
+    }
+    return t;
+  }
+
+  // The arrays and mask are replaced together, so a probe never mixes two sizes,
+  // and at most half the slots are used, so every probe reaches an empty slot
+  private static final class Table {
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+
+    private Table(int capacity) {
+      keys = new long[capacity];
+      values = new int[capacity];
+      Arrays.fill(values, NO_VALUE);
+      mask = capacity - 1;
+    }
+
+    private int indexOf(long key) {
+      int slot = slot(key);
+      while (values[slot] != NO_VALUE) {
+        if (keys[slot] == key) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+      }
+      return -1;
+    }
+
+    private int slot(long key) {
+      long hash = key * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+  }
+}
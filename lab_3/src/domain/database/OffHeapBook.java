@@ -0,0 +1,113 @@
+package domain.database;
+
+import java.util.function.BiConsumer;
+
+import domain.models.Book;
+import domain.models.BookSeries;
+import domain.models.Work;
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+import domain.models.states.ILibraryItemState;
+
+// A book backed by one row of an OffHeapLibraryDatabase. It holds only the row
+// number and its lending policy; every read and write goes to the columns, so
+// the row stays the single source of truth however many callers hold a view.
+// Views are built per lookup and are equal when they name the same row
+class OffHeapBook extends Book {
+  private final OffHeapLibraryDatabase store;
+  private final int row;
+
+  OffHeapBook(OffHeapLibraryDatabase store, int row, BookType type, BookFormat format) {
+    super(type, format);
+    this.store = store;
+    this.row = row;
+  }
+
+  // Copies go to the heap, since they are not part of the store until added
+  @Override
+  public Book clone() {
+    return store.copyRow(row);
+  }
+
+  @Override
+  public Work getWork() {
+    return store.workAt(row);
+  }
+
+  @Override
+  public String getTitle() {
+    return getWork().getTitle();
+  }
+
+  @Override
+  public String getAuthor() {
+    return getWork().getAuthor();
+  }
+
+  @Override
+  public String getIsbn() {
+    return store.isbnAt(row);
+  }
+
+  @Override
+  public int getYear() {
+    return store.yearAt(row);
+  }
+
+  @Override
+  public String setISBN(String isbn) {
+    store.renumber(row, isbn);
+    return isbn;
+  }
+
+  // The store keeps its own index in sync on renumbering
+  @Override
+  public void setIsbnChangeListener(BiConsumer<String, Book> listener) {
+  }
+
+  @Override
+  public int setYear(int year) {
+    store.setYear(row, year);
+    return year;
+  }
+
+  @Override
+  public ILibraryItemState getState() {
+    return store.stateAt(this, row);
+  }
+
+  @Override
+  public void setState(ILibraryItemState state) {
+    state.setContext(this);
+    store.writeLoan(row, state);
+  }
+
+  // Loan states are rebuilt on every read, so `expected` is matched by the row
+  // version it was read at rather than by identity
+  @Override
+  public boolean compareAndSetState(ILibraryItemState expected, ILibraryItemState next) {
+    return store.compareAndSetLoan(row, expected, next);
+  }
+
+  @Override
+  public void addParentSeries(BookSeries series) {
+    store.addParentSeries(row, series);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof OffHeapBook)) {
+      return false;
+    }
+    OffHeapBook book = (OffHeapBook) other;
+    return store == book.store && row == book.row;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * System.identityHashCode(store) + row;
+  }
+}
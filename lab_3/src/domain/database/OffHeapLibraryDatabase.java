@@ -0,0 +1,554 @@
+package domain.database;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import domain.models.Book;
+import domain.models.BookSeries;
+import domain.models.Borrower;
+import domain.models.FictionBook;
+import domain.models.NonFictionBook;
+import domain.models.Work;
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+import domain.models.states.BookAvailableState;
+import domain.models.states.BookCheckedOutState;
+import domain.models.states.DueDateQueue;
+import domain.models.states.ILibraryItemState;
+import domain.models.states.IVersionedState;
+import util.KeyCodec;
+import util.LibraryException;
+
+// Keeps the catalog in direct buffers outside the heap, one column per field:
+// ISBN, year, type, format, work, due date, borrower and loan version. A scan over
+// loans or formats walks one contiguous column instead of chasing Book, state and
+// Borrower pointers, and the heap holds no per-book objects at all: titles and
+// authors live once per distinct work, and lookups build a throwaway OffHeapBook
+// view, equal to any other view of the same row. Borrowers and series are few and
+// stay on the heap.
+//
+// Writers hold the monitor; readers take no lock. A new row is written in full
+// before the volatile size covers it, and a resize publishes the grown columns
+// before any row that needs them. Each loan change bumps the row's version to an
+// odd number, rewrites the loan and ends on the next even number, so a reader
+// retries until it sees one even version on both sides of its read, and a loan
+// state is installed only over the version it was read at
+public class OffHeapLibraryDatabase implements ILibraryDatabase {
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final byte NO_FORMAT = -1;
+  private static final int NOT_CHECKED_OUT = Integer.MIN_VALUE;
+
+  private static final VarHandle SHORT =
+      MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.nativeOrder());
+  private static final VarHandle INT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+  private static final VarHandle LONG =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  private volatile Columns columns;
+  private volatile int size;
+  private volatile Work[] works;
+  private int workCount;
+  private final Map<Work, Integer> workIds;
+
+  private final LongIntHashMap rowsByIsbn;
+  private final IntObjectHashMap<Borrower> borrowersById;
+  private final IntObjectHashMap<List<BookSeries>> parentSeriesByRow;
+  private final OffHeapSearchIndex searchIndex;
+  private final PrefixIndex prefixIndex;
+  private final List<Borrower> borrowers;
+  private final List<BookSeries> series;
+  private final Map<String, BookSeries> seriesByTitle;
+  private final DueDateQueue dueDateQueue;
+
+  public OffHeapLibraryDatabase() {
+    columns = new Columns(INITIAL_CAPACITY);
+    works = new Work[16];
+    workIds = new HashMap<>();
+    rowsByIsbn = new LongIntHashMap();
+    borrowersById = new IntObjectHashMap<>();
+    parentSeriesByRow = new IntObjectHashMap<>();
+    searchIndex = new OffHeapSearchIndex();
+    prefixIndex = new PrefixIndex();
+    borrowers = new ArrayList<>();
+    series = new ArrayList<>();
+    seriesByTitle = new ConcurrentHashMap<>();
+    dueDateQueue = new DueDateQueue();
+  }
+
+  // Copies the book's fields and current loan into a new row. Later changes
+  // must go through the view returned by findBookByIsbn, not the original object
+  @Override
+  public synchronized void addBook(Book book) {
+    long key = KeyCodec.encodeIsbn(book.getIsbn());
+    if (key == KeyCodec.INVALID_ISBN) {
+      throw new LibraryException("Cannot store a book with ISBN " + book.getIsbn());
+    }
+    if (rowsByIsbn.get(key) != LongIntHashMap.NO_VALUE) {
+      throw new LibraryException("Book with ISBN " + book.getIsbn() + " already exists");
+    }
+    int row = size;
+    Columns c = columns;
+    if (row == c.capacity) {
+      c = c.grow(row * 2, row);
+      columns = c;
+    }
+    int workId = workIdOf(book.getWork());
+    c.isbns.putLong(row * Long.BYTES, key);
+    c.years.putShort(row * Short.BYTES, (short) book.getYear());
+    c.types.put(row, (byte) book.getType().ordinal());
+    BookFormat format = book.getFormat();
+    c.formats.put(row, format == null ? NO_FORMAT : (byte) format.ordinal());
+    c.workIds.putInt(row * Integer.BYTES, workId);
+    writeLoanColumns(c, row, book.getState());
+    size = row + 1;
+
+    rowsByIsbn.putIfAbsent(key, row);
+    searchIndex.add(row, workId, book.getWork(), book.getIsbn());
+    prefixIndex.add(book.getTitle());
+    prefixIndex.add(book.getAuthor());
+  }
+
+  @Override
+  public synchronized void addBooks(List<Book> newBooks) {
+    Set<String> batchIsbns = new HashSet<>();
+    for (Book book : newBooks) {
+      String isbn = book.getIsbn();
+      long key = KeyCodec.encodeIsbn(isbn);
+      if (key == KeyCodec.INVALID_ISBN) {
+        throw new LibraryException("Cannot store a book with ISBN " + isbn);
+      }
+      if (!batchIsbns.add(isbn) || rowsByIsbn.get(key) != LongIntHashMap.NO_VALUE) {
+        throw new LibraryException("Book with ISBN " + isbn + " already exists");
+      }
+    }
+    for (Book book : newBooks) {
+      addBook(book);
+    }
+  }
+
+  @Override
+  public synchronized void addBorrower(Borrower borrower) {
+    borrowers.add(borrower);
+    int key = KeyCodec.encodeBorrowerId(borrower.getId());
+    if (key != KeyCodec.INVALID_BORROWER_ID) {
+      borrowersById.putIfAbsent(key, borrower);
+    }
+  }
+
+  @Override
+  public synchronized void addSeries(BookSeries newSeries) {
+    series.add(newSeries);
+    seriesByTitle.putIfAbsent(newSeries.getTitle(), newSeries);
+    prefixIndex.add(newSeries.getTitle());
+  }
+
+  @Override
+  public Book findBookByIsbn(String isbn) {
+    long key = KeyCodec.encodeIsbn(isbn);
+    if (key == KeyCodec.INVALID_ISBN) {
+      return null;
+    }
+    int row = rowsByIsbn.get(key);
+    return row == LongIntHashMap.NO_VALUE ? null : view(row);
+  }
+
+  @Override
+  public BookSeries findSeriesByTitle(String title) {
+    if (title == null) {
+      return null;
+    }
+    return seriesByTitle.get(title);
+  }
+
+  @Override
+  public synchronized List<BookSeries> getAllSeries() {
+    return new ArrayList<>(series);
+  }
+
+  @Override
+  public Borrower findBorrowerById(String id) {
+    int key = KeyCodec.encodeBorrowerId(id);
+    return key == KeyCodec.INVALID_BORROWER_ID ? null : borrowersById.get(key);
+  }
+
+  @Override
+  public synchronized List<Borrower> getAllBorrowers() {
+    return new ArrayList<>(borrowers);
+  }
+
+  @Override
+  public List<Book> searchBooks(String searchTerm) {
+    return searchBooks(searchTerm, 0, Integer.MAX_VALUE);
+  }
+
+  // Terms of three characters or more go through the trigram index; shorter
+  // ones have no trigram to look up and fall back to a scan of the columns
+  @Override
+  public List<Book> searchBooks(String searchTerm, int offset, int limit) {
+    boolean isbnLike = isIsbnFragment(searchTerm);
+    int[] rows = searchIndex.search(searchTerm, isbnLike, this::workById, this::isbnAt);
+    if (rows == null) {
+      return scan(searchTerm, isbnLike, offset, limit);
+    }
+    int end = (int) Math.min(rows.length, (long) offset + limit);
+    List<Book> result = new ArrayList<>(Math.max(0, end - offset));
+    for (int i = offset; i < end; i++) {
+      result.add(view(rows[i]));
+    }
+    return result;
+  }
+
+  @Override
+  public List<Book> getAllBooks() {
+    return getBooks(0, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public List<Book> findBooksByFormat(BookFormat format) {
+    byte ordinal = (byte) format.ordinal();
+    int count = size;
+    Columns c = columns;
+    List<Book> result = new ArrayList<>();
+    for (int row = 0; row < count; row++) {
+      if (c.formats.get(row) == ordinal) {
+        result.add(view(row));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public int countBooks() {
+    return size;
+  }
+
+  @Override
+  public List<Book> getBooks(int offset, int limit) {
+    int end = (int) Math.min(size, (long) offset + limit);
+    List<Book> result = new ArrayList<>(Math.max(0, end - offset));
+    for (int row = offset; row < end; row++) {
+      result.add(view(row));
+    }
+    return result;
+  }
+
+  // Rows are only ever appended, so indexing up to the size seen at call time is safe
+  @Override
+  public Stream<Book> streamBooks() {
+    return IntStream.range(0, size).mapToObj(this::view);
+  }
+
+  @Override
+  public List<String> completePrefix(String prefix, int limit) {
+    return prefixIndex.complete(prefix, limit);
+  }
+
+  @Override
+  public DueDateQueue getDueDateQueue() {
+    return dueDateQueue;
+  }
+
+  public int countCheckedOut() {
+    int count = size;
+    Columns c = columns;
+    int checkedOut = 0;
+    for (int row = 0; row < count; row++) {
+      if (c.dueDays.getInt(row * Integer.BYTES) != NOT_CHECKED_OUT) {
+        checkedOut++;
+      }
+    }
+    return checkedOut;
+  }
+
+  // Loans whose due date is before `today`; touches only the due-date column
+  public int countOverdue(LocalDate today) {
+    int todayDay = (int) today.toEpochDay();
+    int count = size;
+    Columns c = columns;
+    int overdue = 0;
+    for (int row = 0; row < count; row++) {
+      int due = c.dueDays.getInt(row * Integer.BYTES);
+      if (due != NOT_CHECKED_OUT && due < todayDay) {
+        overdue++;
+      }
+    }
+    return overdue;
+  }
+
+  public List<Book> findOverdueBooks(LocalDate today) {
+    int todayDay = (int) today.toEpochDay();
+    int count = size;
+    Columns c = columns;
+    List<Book> result = new ArrayList<>();
+    for (int row = 0; row < count; row++) {
+      int due = c.dueDays.getInt(row * Integer.BYTES);
+      if (due != NOT_CHECKED_OUT && due < todayDay) {
+        result.add(view(row));
+      }
+    }
+    return result;
+  }
+
+  Work workAt(int row) {
+    Columns c = columnsFor(row);
+    return workById(c.workIds.getInt(row * Integer.BYTES));
+  }
+
+  String isbnAt(int row) {
+    Columns c = columnsFor(row);
+    return KeyCodec.decodeIsbn((long) LONG.getAcquire(c.isbns, row * Long.BYTES));
+  }
+
+  int yearAt(int row) {
+    Columns c = columnsFor(row);
+    return (short) SHORT.getAcquire(c.years, row * Short.BYTES);
+  }
+
+  synchronized void setYear(int row, int year) {
+    Columns c = columnsFor(row);
+    SHORT.setRelease(c.years, row * Short.BYTES, (short) year);
+  }
+
+  synchronized void renumber(int row, String isbn) {
+    long key = KeyCodec.encodeIsbn(isbn);
+    if (key == KeyCodec.INVALID_ISBN) {
+      throw new LibraryException("Cannot store a book with ISBN " + isbn);
+    }
+    Columns c = columnsFor(row);
+    long previousKey = c.isbns.getLong(row * Long.BYTES);
+    rowsByIsbn.remove(previousKey, row);
+    LONG.setRelease(c.isbns, row * Long.BYTES, key);
+    rowsByIsbn.putIfAbsent(key, row);
+    searchIndex.renumber(row, KeyCodec.decodeIsbn(previousKey), isbn);
+  }
+
+  // Rebuilds the row's loan as a state object with the view as its context,
+  // stamped with the version it was read at
+  ILibraryItemState stateAt(Book view, int row) {
+    Columns c = columnsFor(row);
+    int offset = row * Integer.BYTES;
+    while (true) {
+      int version = (int) INT.getAcquire(c.versions, offset);
+      int due = c.dueDays.getInt(offset);
+      int borrowerKey = c.borrowerKeys.getInt(offset);
+      VarHandle.loadLoadFence();
+      if ((version & 1) == 0 && version == (int) INT.getOpaque(c.versions, offset)) {
+        return loanState(view, due, borrowerKey, version);
+      }
+      Thread.onSpinWait();
+      c = columns;
+    }
+  }
+
+  synchronized void writeLoan(int row, ILibraryItemState next) {
+    ILibraryItemState previous = stateAt(view(row), row);
+    stamp(next, writeLoanColumns(columnsFor(row), row, next));
+    BookSeries.notifyAvailabilityChange(parentsOf(row), previous, next);
+  }
+
+  // States that were not read from this store carry no version and never match
+  synchronized boolean compareAndSetLoan(int row, ILibraryItemState expected,
+      ILibraryItemState next) {
+    Columns c = columnsFor(row);
+    if (!(expected instanceof IVersionedState)
+        || ((IVersionedState) expected).getVersion() != c.versions.getInt(row * Integer.BYTES)) {
+      return false;
+    }
+    stamp(next, writeLoanColumns(c, row, next));
+    BookSeries.notifyAvailabilityChange(parentsOf(row), expected, next);
+    return true;
+  }
+
+  synchronized void addParentSeries(int row, BookSeries parent) {
+    List<BookSeries> parents = parentSeriesByRow.get(row);
+    if (parents == null) {
+      parents = new ArrayList<>(1);
+      parentSeriesByRow.putIfAbsent(row, parents);
+    }
+    parents.add(parent);
+  }
+
+  Book copyRow(int row) {
+    Columns c = columnsFor(row);
+    Work work = workAt(row);
+    BookFormat format = formatOf(c.formats.get(row));
+    String isbn = isbnAt(row);
+    int year = yearAt(row);
+    return switch (BookType.values()[c.types.get(row)]) {
+      case FICTION -> new FictionBook(work.getTitle(), work.getAuthor(), isbn, year, format);
+      case NON_FICTION -> new NonFictionBook(work.getTitle(), work.getAuthor(), isbn, year, format);
+    };
+  }
+
+  private OffHeapBook view(int row) {
+    Columns c = columnsFor(row);
+    return new OffHeapBook(this, row, BookType.values()[c.types.get(row)], formatOf(c.formats.get(row)));
+  }
+
+  // Reads the size before the columns: any columns published by then are large
+  // enough for every row the size covers
+  private Columns columnsFor(int row) {
+    Objects.checkIndex(row, size);
+    return columns;
+  }
+
+  private Work workById(int workId) {
+    return works[workId];
+  }
+
+  // Called with the monitor held. The work array is filled before it is
+  // published, and a new work is in it before any row refers to it
+  private int workIdOf(Work work) {
+    Integer id = workIds.get(work);
+    if (id != null) {
+      return id;
+    }
+    Work[] current = works;
+    if (workCount == current.length) {
+      current = Arrays.copyOf(current, workCount * 2);
+    }
+    current[workCount] = work;
+    works = current;
+    workIds.put(work, workCount);
+    return workCount++;
+  }
+
+  private List<BookSeries> parentsOf(int row) {
+    List<BookSeries> parents = parentSeriesByRow.get(row);
+    return parents == null ? List.of() : parents;
+  }
+
+  private List<Book> scan(String searchTerm, boolean isbnLike, int offset, int limit) {
+    int count = size;
+    Columns c = columns;
+    List<Book> result = new ArrayList<>();
+    int skipped = 0;
+    for (int row = 0; row < count && result.size() < limit; row++) {
+      Work work = workById(c.workIds.getInt(row * Integer.BYTES));
+      if (OffHeapSearchIndex.containsIgnoreCase(work.getTitle(), searchTerm)
+          || OffHeapSearchIndex.containsIgnoreCase(work.getAuthor(), searchTerm)
+          || (isbnLike && isbnAt(row).contains(searchTerm))) {
+        if (skipped < offset) {
+          skipped++;
+        } else {
+          result.add(view(row));
+        }
+      }
+    }
+    return result;
+  }
+
+  private ILibraryItemState loanState(Book view, int due, int borrowerKey, int version) {
+    if (due == NOT_CHECKED_OUT) {
+      BookAvailableState state = new BookAvailableState();
+      state.setContext(view);
+      state.setVersion(version);
+      return state;
+    }
+    BookCheckedOutState state = new BookCheckedOutState();
+    state.setContext(view);
+    state.setBorrower(borrowersById.get(borrowerKey));
+    state.setDueDate(LocalDate.ofEpochDay(due));
+    state.setVersion(version);
+    return state;
+  }
+
+  // Called with the monitor held; returns the row's new version
+  private static int writeLoanColumns(Columns c, int row, ILibraryItemState state) {
+    int offset = row * Integer.BYTES;
+    int version = c.versions.getInt(offset);
+    INT.setOpaque(c.versions, offset, version + 1);
+    VarHandle.storeStoreFence();
+    if (state.isAvailable()) {
+      c.dueDays.putInt(offset, NOT_CHECKED_OUT);
+      c.borrowerKeys.putInt(offset, KeyCodec.INVALID_BORROWER_ID);
+    } else {
+      c.dueDays.putInt(offset, (int) state.getDueDate().toEpochDay());
+      c.borrowerKeys.putInt(offset, borrowerKey(state.getBorrower()));
+    }
+    INT.setRelease(c.versions, offset, version + 2);
+    return version + 2;
+  }
+
+  private static void stamp(ILibraryItemState state, int version) {
+    if (state instanceof IVersionedState) {
+      ((IVersionedState) state).setVersion(version);
+    }
+  }
+
+  private static int borrowerKey(Borrower borrower) {
+    return borrower == null ? KeyCodec.INVALID_BORROWER_ID : KeyCodec.encodeBorrowerId(borrower.getId());
+  }
+
+  private static BookFormat formatOf(byte format) {
+    return format == NO_FORMAT ? null : BookFormat.values()[format];
+  }
+
+  private static boolean isIsbnFragment(String term) {
+    for (int i = 0; i < term.length(); i++) {
+      char c = term.charAt(i);
+      if ((c < '0' || c > '9') && c != '-') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // One generation of the column buffers. A resize copies the rows into a new
+  // generation and publishes it whole; the old one is left as it was
+  private static final class Columns {
+    private final int capacity;
+    private final ByteBuffer isbns;
+    private final ByteBuffer years;
+    private final ByteBuffer types;
+    private final ByteBuffer formats;
+    private final ByteBuffer workIds;
+    private final ByteBuffer dueDays;
+    private final ByteBuffer borrowerKeys;
+    private final ByteBuffer versions;
+
+    private Columns(int capacity) {
+      this.capacity = capacity;
+      isbns = column(capacity * Long.BYTES);
+      years = column(capacity * Short.BYTES);
+      types = column(capacity);
+      formats = column(capacity);
+      workIds = column(capacity * Integer.BYTES);
+      dueDays = column(capacity * Integer.BYTES);
+      borrowerKeys = column(capacity * Integer.BYTES);
+      versions = column(capacity * Integer.BYTES);
+    }
+
+    private Columns grow(int newCapacity, int rows) {
+      Columns grown = new Columns(newCapacity);
+      grown.isbns.put(0, isbns, 0, rows * Long.BYTES);
+      grown.years.put(0, years, 0, rows * Short.BYTES);
+      grown.types.put(0, types, 0, rows);
+      grown.formats.put(0, formats, 0, rows);
+      grown.workIds.put(0, workIds, 0, rows * Integer.BYTES);
+      grown.dueDays.put(0, dueDays, 0, rows * Integer.BYTES);
+      grown.borrowerKeys.put(0, borrowerKeys, 0, rows * Integer.BYTES);
+      grown.versions.put(0, versions, 0, rows * Integer.BYTES);
+      return grown;
+    }
+
+    private static ByteBuffer column(int bytes) {
+      return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package domain.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+import domain.models.Work;
+
+// Trigram index for OffHeapLibraryDatabase. Titles and authors are indexed once
+// per distinct work, with each work listing the rows that hold a copy of it, so
+// a catalog of many copies of few titles keeps a small index. ISBN trigrams point
+// at rows directly. Candidates are verified against the store, which keeps the
+// substring semantics of a plain scan
+class OffHeapSearchIndex {
+  private static final int GRAM_SIZE = 3;
+
+  private final Map<String, PostingList> worksByGram;
+  private final List<PostingList> rowsByWork;
+  private final Map<String, PostingList> rowsByIsbnGram;
+  private final ReadWriteLock lock;
+
+  OffHeapSearchIndex() {
+    this.worksByGram = new HashMap<>();
+    this.rowsByWork = new ArrayList<>();
+    this.rowsByIsbnGram = new HashMap<>();
+    this.lock = new ReentrantReadWriteLock();
+  }
+
+  // Work ids are handed out densely by the store, so a new work is the next id
+  void add(int row, int workId, Work work, String isbn) {
+    lock.writeLock().lock();
+    try {
+      if (workId == rowsByWork.size()) {
+        rowsByWork.add(new PostingList());
+        Set<String> grams = grams(work.getTitle().toLowerCase(), new HashSet<>());
+        grams(work.getAuthor().toLowerCase(), grams);
+        for (String gram : grams) {
+          worksByGram.computeIfAbsent(gram, g -> new PostingList()).add(workId);
+        }
+      }
+      rowsByWork.get(workId).add(row);
+      for (String gram : grams(isbn, new HashSet<>())) {
+        rowsByIsbnGram.computeIfAbsent(gram, g -> new PostingList()).add(row);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void renumber(int row, String previousIsbn, String isbn) {
+    lock.writeLock().lock();
+    try {
+      for (String gram : grams(previousIsbn, new HashSet<>())) {
+        rowsByIsbnGram.get(gram).remove(row);
+      }
+      for (String gram : grams(isbn, new HashSet<>())) {
+        rowsByIsbnGram.computeIfAbsent(gram, g -> new PostingList()).add(row);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Rows whose title, author or ISBN contains the term, in row order, or null if
+  // the term is too short to have a trigram and the caller must scan
+  int[] search(String searchTerm, boolean isbnLike, IntFunction<Work> workById,
+      IntFunction<String> isbnAt) {
+    Set<String> grams = grams(searchTerm.toLowerCase(), new HashSet<>());
+    if (grams.isEmpty()) {
+      return null;
+    }
+
+    lock.readLock().lock();
+    try {
+      RowBuffer rows = new RowBuffer();
+      for (int workId : candidates(worksByGram, grams)) {
+        Work work = workById.apply(workId);
+        if (containsIgnoreCase(work.getTitle(), searchTerm)
+            || containsIgnoreCase(work.getAuthor(), searchTerm)) {
+          PostingList copies = rowsByWork.get(workId);
+          for (int i = 0; i < copies.size(); i++) {
+            rows.add(copies.get(i));
+          }
+        }
+      }
+      if (isbnLike) {
+        for (int row : candidates(rowsByIsbnGram, grams)) {
+          if (isbnAt.apply(row).contains(searchTerm)) {
+            rows.add(row);
+          }
+        }
+      }
+      return rows.sortedDistinct();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  static boolean containsIgnoreCase(String text, String term) {
+    int last = text.length() - term.length();
+    for (int i = 0; i <= last; i++) {
+      if (text.regionMatches(true, i, term, 0, term.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Ids present in the posting list of every gram, walking the shortest list
+  private static int[] candidates(Map<String, PostingList> postings, Set<String> grams) {
+    List<PostingList> lists = new ArrayList<>(grams.size());
+    for (String gram : grams) {
+      PostingList list = postings.get(gram);
+      if (list == null || list.size() == 0) {
+        return new int[0];
+      }
+      lists.add(list);
+    }
+    lists.sort(Comparator.comparingInt(PostingList::size));
+
+    PostingList smallest = lists.get(0);
+    RowBuffer result = new RowBuffer();
+    for (int i = 0; i < smallest.size(); i++) {
+      int id = smallest.get(i);
+      if (inAll(lists, id)) {
+        result.add(id);
+      }
+    }
+    return result.toArray();
+  }
+
+  private static boolean inAll(List<PostingList> lists, int id) {
+    for (int i = 1; i < lists.size(); i++) {
+      if (!lists.get(i).contains(id)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Set<String> grams(String text, Set<String> grams) {
+    for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+      grams.add(text.substring(i, i + GRAM_SIZE));
+    }
+    return grams;
+  }
+
+  private static final class RowBuffer {
+    private int[] rows = new int[16];
+    private int size;
+
+    void add(int row) {
+      if (size == rows.length) {
+        rows = Arrays.copyOf(rows, size * 2);
+      }
+      rows[size++] = row;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(rows, size);
+    }
+
+    int[] sortedDistinct() {
+      Arrays.sort(rows, 0, size);
+      int distinct = 0;
+      for (int i = 0; i < size; i++) {
+        if (distinct == 0 || rows[distinct - 1] != rows[i]) {
+          rows[distinct++] = rows[i];
+        }
+      }
+      return Arrays.copyOf(rows, distinct);
+    }
+  }
+}
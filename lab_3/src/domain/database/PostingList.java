@@ -0,0 +1,52 @@
+package domain.database;
+
+import java.util.Arrays;
+
+// Sorted, duplicate-free list of int ids backing an inverted index. Not
+// thread-safe; the owning index guards it
+class PostingList {
+  private int[] ids = new int[4];
+  private int size;
+
+  void add(int id) {
+    if (size > 0 && ids[size - 1] >= id) {
+      int position = Arrays.binarySearch(ids, 0, size, id);
+      if (position >= 0) {
+        return;
+      }
+      insertAt(-position - 1, id);
+      return;
+    }
+    insertAt(size, id);
+  }
+
+  void remove(int id) {
+    int position = Arrays.binarySearch(ids, 0, size, id);
+    if (position < 0) {
+      return;
+    }
+    System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+    size--;
+  }
+
+  boolean contains(int id) {
+    return Arrays.binarySearch(ids, 0, size, id) >= 0;
+  }
+
+  int get(int index) {
+    return ids[index];
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void insertAt(int position, int id) {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+    }
+    System.arraycopy(ids, position, ids, position + 1, size - position);
+    ids[position] = id;
+    size++;
+  }
+}
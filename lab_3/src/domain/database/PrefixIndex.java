@@ -0,0 +1,36 @@
+package domain.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Sorted, case-insensitive index of display strings; a completion query is one
+// seek plus a walk over at most limit entries
+public class PrefixIndex {
+  private final NavigableMap<String, String> entries;
+
+  public PrefixIndex() {
+    this.entries = new ConcurrentSkipListMap<>();
+  }
+
+  public void add(String value) {
+    if (value == null || value.isEmpty()) {
+      return;
+    }
+    entries.putIfAbsent(value.toLowerCase(), value);
+  }
+
+  public List<String> complete(String prefix, int limit) {
+    String key = prefix.toLowerCase();
+    List<String> completions = new ArrayList<>(Math.min(limit, 16));
+    for (Map.Entry<String, String> entry : entries.tailMap(key, true).entrySet()) {
+      if (completions.size() >= limit || !entry.getKey().startsWith(key)) {
+        break;
+      }
+      completions.add(entry.getValue());
+    }
+    return completions;
+  }
+}
@@ -0,0 +1,249 @@
+package domain.database.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import domain.database.ILibraryDatabase;
+import domain.models.Book;
+import domain.models.BookSeries;
+import domain.models.Borrower;
+import domain.models.FictionBook;
+import domain.models.ILibraryItem;
+import domain.models.NonFictionBook;
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+import domain.models.states.BookCheckedOutState;
+import domain.models.states.DueDateQueue;
+import domain.models.states.ILibraryItemState;
+import domain.models.states.SeriesCheckedOutState;
+import util.LibraryException;
+
+// Compact binary image of books, borrowers, series and loans. Restoring maps the
+// file and rebuilds the objects directly, skipping validation and factory dispatch
+public class LibrarySnapshot {
+  private static final int MAGIC = 0x4C494253;
+  private static final int VERSION = 1;
+  private static final byte NO_FORMAT = -1;
+  private static final long NOT_CHECKED_OUT = Long.MIN_VALUE;
+
+  private LibrarySnapshot() {
+  }
+
+  // Only safe while nothing changes the library; a live library is captured under
+  // its facade's locks instead, see LibraryFacade.writeSnapshot
+  public static void write(ILibraryDatabase database, Path path) {
+    save(capture(database), path);
+  }
+
+  // Serializes the library to memory. Borrowers, books, series and loans are read
+  // one after another, so the caller must hold off loan and membership changes
+  // for the image to be consistent
+  public static byte[] capture(ILibraryDatabase database) {
+    ByteArrayOutputStream image = new ByteArrayOutputStream(1 << 16);
+    try (DataOutputStream out = new DataOutputStream(image)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+
+      List<Borrower> borrowers = database.getAllBorrowers();
+      out.writeInt(borrowers.size());
+      for (Borrower borrower : borrowers) {
+        writeString(out, borrower.getId());
+        writeString(out, borrower.getName());
+      }
+
+      // Books are append-only, so the first bookCount entries are stable while we stream
+      int bookCount = database.countBooks();
+      out.writeInt(bookCount);
+      database.streamBooks().limit(bookCount).forEach(book -> writeBook(out, book));
+
+      List<BookSeries> allSeries = database.getAllSeries();
+      out.writeInt(allSeries.size());
+      for (BookSeries series : allSeries) {
+        writeString(out, series.getTitle());
+        List<ILibraryItem> items = series.getItems();
+        out.writeInt(items.size());
+        for (ILibraryItem item : items) {
+          writeString(out, ((Book) item).getIsbn());
+        }
+        writeLoan(out, series.getState());
+      }
+
+      for (Borrower borrower : borrowers) {
+        List<Book> borrowedBooks = borrower.getBorrowedBooks();
+        out.writeInt(borrowedBooks.size());
+        for (Book book : borrowedBooks) {
+          writeString(out, book.getIsbn());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot capture snapshot", e);
+    }
+    return image.toByteArray();
+  }
+
+  // The image is on disk before it replaces the old snapshot, so a crash leaves
+  // either the old snapshot or the complete new one
+  public static void save(byte[] image, Path path) {
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(image);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write snapshot " + path, e);
+    }
+
+    try {
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot replace snapshot " + path, e);
+    }
+  }
+
+  public static void restore(Path path, ILibraryDatabase database) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new LibraryException("Snapshot is too large to map: " + path);
+      }
+      MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+        throw new LibraryException("Not a library snapshot: " + path);
+      }
+
+      int borrowerCount = in.getInt();
+      Borrower[] borrowers = new Borrower[borrowerCount];
+      Map<String, Borrower> borrowersById = new HashMap<>(borrowerCount * 2);
+      for (int i = 0; i < borrowerCount; i++) {
+        Borrower borrower = new Borrower(readString(in), readString(in));
+        borrowers[i] = borrower;
+        borrowersById.put(borrower.getId(), borrower);
+        database.addBorrower(borrower);
+      }
+
+      int bookCount = in.getInt();
+      for (int i = 0; i < bookCount; i++) {
+        Book book = readBook(in, borrowersById);
+        database.addBook(book);
+        scheduleLoan(database.getDueDateQueue(), database.findBookByIsbn(book.getIsbn()));
+      }
+
+      int seriesCount = in.getInt();
+      for (int i = 0; i < seriesCount; i++) {
+        BookSeries series = new BookSeries(readString(in));
+        int itemCount = in.getInt();
+        for (int j = 0; j < itemCount; j++) {
+          series.addItem(database.findBookByIsbn(readString(in)));
+        }
+        restoreSeriesLoan(in, series, borrowersById, database.getDueDateQueue());
+        database.addSeries(series);
+      }
+
+      for (Borrower borrower : borrowers) {
+        int borrowedCount = in.getInt();
+        for (int j = 0; j < borrowedCount; j++) {
+          borrower.getBorrowedBooks().add(database.findBookByIsbn(readString(in)));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read snapshot " + path, e);
+    }
+  }
+
+  private static void writeBook(DataOutputStream out, Book book) {
+    try {
+      out.writeByte(book.getType().ordinal());
+      BookFormat format = book.getFormat();
+      out.writeByte(format == null ? NO_FORMAT : format.ordinal());
+      writeString(out, book.getTitle());
+      writeString(out, book.getAuthor());
+      writeString(out, book.getIsbn());
+      out.writeInt(book.getYear());
+      writeLoan(out, book.getState());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Book readBook(MappedByteBuffer in, Map<String, Borrower> borrowersById) {
+    BookType type = BookType.values()[in.get()];
+    byte format = in.get();
+    String title = readString(in);
+    String author = readString(in);
+    String isbn = readString(in);
+    int year = in.getInt();
+
+    BookFormat bookFormat = format == NO_FORMAT ? null : BookFormat.values()[format];
+    Book book = switch (type) {
+      case FICTION -> new FictionBook(title, author, isbn, year, bookFormat);
+      case NON_FICTION -> new NonFictionBook(title, author, isbn, year, bookFormat);
+    };
+
+    long dueEpochDay = in.getLong();
+    if (dueEpochDay != NOT_CHECKED_OUT) {
+      BookCheckedOutState state = new BookCheckedOutState();
+      book.setState(state);
+      state.setBorrower(borrowersById.get(readString(in)));
+      state.setDueDate(LocalDate.ofEpochDay(dueEpochDay));
+    }
+    return book;
+  }
+
+  // Scheduled once stored, since a database may keep its own copy of the book
+  private static void scheduleLoan(DueDateQueue dueDateQueue, Book book) {
+    ILibraryItemState state = book.getState();
+    if (!state.isAvailable()) {
+      dueDateQueue.schedule(book, state.getDueDate());
+    }
+  }
+
+  private static void restoreSeriesLoan(MappedByteBuffer in, BookSeries series,
+      Map<String, Borrower> borrowersById, DueDateQueue dueDateQueue) {
+    long dueEpochDay = in.getLong();
+    if (dueEpochDay == NOT_CHECKED_OUT) {
+      return;
+    }
+    SeriesCheckedOutState state = new SeriesCheckedOutState();
+    series.setState(state);
+    state.setBorrower(borrowersById.get(readString(in)));
+    state.setDueDate(LocalDate.ofEpochDay(dueEpochDay));
+    dueDateQueue.schedule(series, state.getDueDate());
+  }
+
+  private static void writeLoan(DataOutputStream out, ILibraryItemState state) throws IOException {
+    if (state.isAvailable()) {
+      out.writeLong(NOT_CHECKED_OUT);
+      return;
+    }
+    out.writeLong(state.getDueDate().toEpochDay());
+    writeString(out, state.getBorrower().getId());
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(MappedByteBuffer in) {
+    byte[] bytes = new byte[in.getInt()];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,10 @@
+package domain.database.wal;
+
+public enum FsyncPolicy {
+  // The caller returns only after its record is on disk; concurrent callers share one fsync
+  EVERY_COMMIT,
+  // Records are written and fsynced in one batch per flush interval
+  INTERVAL,
+  // Records are written per flush interval and the OS decides when they reach disk
+  NONE
+}
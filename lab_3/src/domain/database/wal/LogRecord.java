@@ -0,0 +1,111 @@
+package domain.database.wal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// One line per record: "<crc32>\t<type>\t<field>...\n", with tabs, newlines and
+// backslashes escaped inside fields so a torn or corrupt tail is easy to detect
+public class LogRecord {
+  private final LogRecordType type;
+  private final String[] fields;
+
+  public LogRecord(LogRecordType type, String... fields) {
+    this.type = type;
+    this.fields = fields;
+  }
+
+  public LogRecordType getType() {
+    return type;
+  }
+
+  public String getField(int index) {
+    return fields[index];
+  }
+
+  public int getFieldCount() {
+    return fields.length;
+  }
+
+  byte[] encode() {
+    StringBuilder payload = new StringBuilder(type.name());
+    for (String field : fields) {
+      payload.append('\t');
+      escape(field, payload);
+    }
+    String body = payload.toString();
+    return (Long.toHexString(checksum(body)) + '\t' + body + '\n').getBytes(StandardCharsets.UTF_8);
+  }
+
+  static LogRecord decode(String line) {
+    int separator = line.indexOf('\t');
+    if (separator < 0) {
+      return null;
+    }
+
+    String body = line.substring(separator + 1);
+    try {
+      if (Long.parseLong(line.substring(0, separator), 16) != checksum(body)) {
+        return null;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+
+    String[] parts = body.split("\t", -1);
+    LogRecordType type;
+    try {
+      type = LogRecordType.valueOf(parts[0]);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+
+    List<String> decoded = new ArrayList<>(parts.length - 1);
+    for (int i = 1; i < parts.length; i++) {
+      decoded.add(unescape(parts[i]));
+    }
+    return new LogRecord(type, decoded.toArray(new String[0]));
+  }
+
+  private static long checksum(String body) {
+    CRC32 crc = new CRC32();
+    crc.update(body.getBytes(StandardCharsets.UTF_8));
+    return crc.getValue();
+  }
+
+  private static void escape(String field, StringBuilder out) {
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      switch (c) {
+        case '\\' -> out.append("\\\\");
+        case '\t' -> out.append("\\t");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        default -> out.append(c);
+      }
+    }
+  }
+
+  private static String unescape(String field) {
+    if (field.indexOf('\\') < 0) {
+      return field;
+    }
+    StringBuilder out = new StringBuilder(field.length());
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      if (c != '\\' || i + 1 == field.length()) {
+        out.append(c);
+        continue;
+      }
+      char next = field.charAt(++i);
+      switch (next) {
+        case 't' -> out.append('\t');
+        case 'n' -> out.append('\n');
+        case 'r' -> out.append('\r');
+        default -> out.append(next);
+      }
+    }
+    return out.toString();
+  }
+}
@@ -0,0 +1,13 @@
+package domain.database.wal;
+
+public enum LogRecordType {
+  ADD_BOOK,
+  COPY_BOOK,
+  ADD_BORROWER,
+  ADD_SERIES,
+  ADD_BOOK_TO_SERIES,
+  CHECKOUT,
+  RETURN,
+  // The operation journaled at the given position failed and must not be replayed
+  ABORT
+}
@@ -0,0 +1,217 @@
+package domain.database.wal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Append-only, group-committed journal. Appends are queued in memory and a single
+// flush writes the whole queue with one sequential write and at most one fsync.
+// A failed write or fsync fails the log for good: the batch may be partly on disk,
+// so nothing after it can be trusted, and every later append or flush throws
+public class WriteAheadLog implements AutoCloseable {
+  private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+
+  private final FileChannel channel;
+  private final FsyncPolicy policy;
+  private final List<LogRecord> recoveredRecords;
+  private ScheduledExecutorService flusher;
+  private final Object flushLock = new Object();
+  private List<byte[]> pending = new ArrayList<>();
+  private long appendedSequence;
+  private volatile long durableSequence;
+  private volatile boolean closed;
+  private volatile UncheckedIOException failure;
+
+  private WriteAheadLog(Path path, FsyncPolicy policy) {
+    this.policy = policy;
+    try {
+      this.channel = FileChannel.open(path,
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.recoveredRecords = recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open write-ahead log " + path, e);
+    }
+  }
+
+  public static WriteAheadLog open(Path path, FsyncPolicy policy) {
+    return open(path, policy, DEFAULT_FLUSH_INTERVAL_MILLIS);
+  }
+
+  // Reads back the existing records, then starts the background flusher unless
+  // every append flushes for itself
+  public static WriteAheadLog open(Path path, FsyncPolicy policy, long flushIntervalMillis) {
+    WriteAheadLog log = new WriteAheadLog(path, policy);
+    if (policy != FsyncPolicy.EVERY_COMMIT) {
+      log.startFlusher(flushIntervalMillis);
+    }
+    return log;
+  }
+
+  private void startFlusher(long flushIntervalMillis) {
+    flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "wal-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.scheduleWithFixedDelay(this::flushQuietly,
+        flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public List<LogRecord> getRecoveredRecords() {
+    return recoveredRecords;
+  }
+
+  // Returns the record's position in the log, counting recovered records, so a
+  // later ABORT record can refer to it. Under EVERY_COMMIT the record is on disk
+  // when this returns
+  public long append(LogRecord record) {
+    byte[] encoded = record.encode();
+    long sequence;
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("Write-ahead log is closed");
+      }
+      checkHealthy();
+      pending.add(encoded);
+      sequence = ++appendedSequence;
+    }
+
+    if (policy == FsyncPolicy.EVERY_COMMIT && durableSequence < sequence) {
+      flush();
+      // The batch holding this record may have been written by another caller's failed flush
+      if (durableSequence < sequence) {
+        checkHealthy();
+      }
+    }
+    return recoveredRecords.size() + sequence - 1;
+  }
+
+  // Whoever holds the flush lock writes everything queued so far, so callers that
+  // waited behind it usually find their record already durable
+  public void flush() {
+    synchronized (flushLock) {
+      checkHealthy();
+      List<byte[]> batch;
+      long batchSequence;
+      synchronized (this) {
+        if (pending.isEmpty()) {
+          return;
+        }
+        batch = pending;
+        batchSequence = appendedSequence;
+        pending = new ArrayList<>();
+      }
+
+      int size = 0;
+      for (byte[] record : batch) {
+        size += record.length;
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(size);
+      for (byte[] record : batch) {
+        buffer.put(record);
+      }
+      buffer.flip();
+
+      try {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        if (policy != FsyncPolicy.NONE) {
+          channel.force(false);
+        }
+      } catch (IOException e) {
+        failure = new UncheckedIOException("Cannot write to write-ahead log", e);
+        throw failure;
+      }
+      durableSequence = batchSequence;
+    }
+  }
+
+  private void checkHealthy() {
+    UncheckedIOException failed = failure;
+    if (failed != null) {
+      throw new UncheckedIOException("Write-ahead log failed earlier", failed.getCause());
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (UncheckedIOException e) {
+      // The log has failed for good; retrying every interval would only repeat the error
+      System.err.println("Write-ahead log flush failed: " + e.getMessage());
+      flusher.shutdown();
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    if (flusher != null) {
+      flusher.shutdown();
+    }
+    try {
+      flush();
+    } finally {
+      closeChannel();
+    }
+  }
+
+  private void closeChannel() {
+    try {
+      channel.force(false);
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot close write-ahead log", e);
+    }
+  }
+
+  // Reads every intact record and cuts off a torn or corrupt tail left by a crash,
+  // so new appends start right after the last good record
+  private List<LogRecord> recover() throws IOException {
+    List<LogRecord> records = new ArrayList<>();
+    long validLength = 0;
+    long offset = 0;
+
+    channel.position(0);
+    InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != -1) {
+      offset++;
+      if (b != '\n') {
+        line.write(b);
+        continue;
+      }
+      LogRecord record = LogRecord.decode(line.toString(StandardCharsets.UTF_8));
+      if (record == null) {
+        break;
+      }
+      records.add(record);
+      validLength = offset;
+      line.reset();
+    }
+
+    channel.truncate(validLength);
+    channel.position(validLength);
+    return records;
+  }
+}
@@ -1,7 +1,13 @@
 package domain.factory;
 
 import domain.models.*;
+import domain.models.enums.BookFormat;
 
 public abstract class BookCreator {
-  public abstract Book createBook(String title, String author, String isbn, int year);
+  public Book createBook(String title, String author, String isbn, int year) {
+    return createBook(title, author, isbn, year, null);
+  }
+
+  public abstract Book createBook(String title, String author, String isbn, int year,
+      BookFormat format);
 }
\ No newline at end of file
@@ -2,10 +2,12 @@ package domain.factory;
 
 import domain.models.Book;
 import domain.models.FictionBook;
+import domain.models.enums.BookFormat;
 
 public class FictionSection extends BookCreator {
   @Override
-  public Book createBook(String title, String author, String isbn, int year) {
-    return new FictionBook(title, author, isbn, year);
+  public Book createBook(String title, String author, String isbn, int year,
+      BookFormat format) {
+    return new FictionBook(title, author, isbn, year, format);
   }
 }
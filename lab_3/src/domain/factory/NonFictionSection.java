@@ -2,10 +2,12 @@ package domain.factory;
 
 import domain.models.Book;
 import domain.models.NonFictionBook;
+import domain.models.enums.BookFormat;
 
 public class NonFictionSection extends BookCreator {
   @Override
-  public Book createBook(String title, String author, String isbn, int year) {
-    return new NonFictionBook(title, author, isbn, year);
+  public Book createBook(String title, String author, String isbn, int year,
+      BookFormat format) {
+    return new NonFictionBook(title, author, isbn, year, format);
   }
 }
\ No newline at end of file
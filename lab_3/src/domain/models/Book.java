@@ -1,43 +1,92 @@
 package domain.models;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
+
+import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 import domain.models.states.BookAvailableState;
 import domain.models.states.ILibraryItemState;
 
 public abstract class Book implements ILibraryItem, Cloneable {
-  private String title;
-  private String author;
+  private static final AtomicReferenceFieldUpdater<Book, ILibraryItemState> STATE =
+      AtomicReferenceFieldUpdater.newUpdater(Book.class, ILibraryItemState.class, "state");
+
+  private Work work;
   private String isbn;
   private int year;
-  private ILibraryItemState state;
+  private volatile ILibraryItemState state;
+  private BiConsumer<String, Book> isbnChangeListener;
+  private List<BookSeries> parentSeries;
+  private final LendingPolicy policy;
 
-  protected Book(String title, String author, String isbn, int year) {
-    this.title = title;
-    this.author = author;
+  protected Book(String title, String author, String isbn, int year, BookType type) {
+    this(title, author, isbn, year, type, null);
+  }
+
+  protected Book(String title, String author, String isbn, int year, BookType type,
+      BookFormat format) {
+    this.work = new Work(title, author);
     this.isbn = isbn;
     this.year = year;
+    this.policy = LendingPolicy.of(type, format);
+    this.parentSeries = new CopyOnWriteArrayList<>();
+    this.state = new BookAvailableState();
+    this.state.setContext(this);
+  }
+
+  // Used by format wrappers: takes the wrapped book's fields and the policy for
+  // the new format. The wrapper holds its own loan state, so checkouts are judged
+  // by the wrapper's policy and queued and announced under the wrapper
+  protected Book(Book book, BookFormat format) {
+    this.work = book.getWork();
+    this.isbn = book.getIsbn();
+    this.year = book.getYear();
+    this.policy = LendingPolicy.of(book.getType(), format);
+    this.parentSeries = new CopyOnWriteArrayList<>();
     this.state = new BookAvailableState();
     this.state.setContext(this);
   }
 
+  // Used by views over a column store: only the lending policy lives in the
+  // object, and the subclass reads every other field from the store
+  protected Book(BookType type, BookFormat format) {
+    this.work = null;
+    this.policy = LendingPolicy.of(type, format);
+  }
+
   @Override
   public Book clone() {
     try {
       Book clonedBook = (Book) super.clone();
       clonedBook.state = new BookAvailableState();
       clonedBook.state.setContext(clonedBook);
+      clonedBook.isbnChangeListener = null;
+      clonedBook.parentSeries = new CopyOnWriteArrayList<>();
       return clonedBook;
     } catch (CloneNotSupportedException e) {
       throw new RuntimeException("Error cloning book", e);
     }
   }
 
+  // Shared with every other copy of the same title once the book is stored
+  public Work getWork() {
+    return work;
+  }
+
+  // Called by a database before it stores the book, which no other thread can see yet
+  public void shareWork(WorkPool pool) {
+    work = pool.intern(work);
+  }
+
   public String getTitle() {
-    return title;
+    return work.getTitle();
   }
 
   public String getAuthor() {
-    return author;
+    return work.getAuthor();
   }
 
   public String getIsbn() {
@@ -49,7 +98,17 @@ public abstract class Book implements ILibraryItem, Cloneable {
   }
 
   public String setISBN(String isbn) {
-    return this.isbn = isbn;
+    String previousIsbn = this.isbn;
+    this.isbn = isbn;
+    if (isbnChangeListener != null) {
+      isbnChangeListener.accept(previousIsbn, this);
+    }
+    return isbn;
+  }
+
+  // Lets the database keep its ISBN index in sync when a stored book is renumbered
+  public void setIsbnChangeListener(BiConsumer<String, Book> isbnChangeListener) {
+    this.isbnChangeListener = isbnChangeListener;
   }
 
   public int setYear(int year) {
@@ -58,8 +117,24 @@ public abstract class Book implements ILibraryItem, Cloneable {
 
   @Override
   public void setState(ILibraryItemState state) {
-    this.state = state;
     state.setContext(this);
+    BookSeries.notifyAvailabilityChange(parentSeries, STATE.getAndSet(this, state), state);
+  }
+
+  // Installs the next state only if no other thread changed it since `expected`
+  // was read. The next state must already have this book as its context
+  @Override
+  public boolean compareAndSetState(ILibraryItemState expected, ILibraryItemState next) {
+    if (!STATE.compareAndSet(this, expected, next)) {
+      return false;
+    }
+    BookSeries.notifyAvailabilityChange(parentSeries, expected, next);
+    return true;
+  }
+
+  @Override
+  public void addParentSeries(BookSeries series) {
+    parentSeries.add(series);
   }
 
   @Override
@@ -67,21 +142,41 @@ public abstract class Book implements ILibraryItem, Cloneable {
     return state;
   }
 
-  public abstract BookType getType();
+  public final LendingPolicy getLendingPolicy() {
+    return policy;
+  }
+
+  public final BookType getType() {
+    return policy.getType();
+  }
 
-  public abstract int getMaxLoanDays();
+  public final BookFormat getFormat() {
+    return policy.getFormat();
+  }
 
-  public abstract double calculateLateFee(long daysLate);
+  public final int getMaxLoanDays() {
+    return policy.getMaxLoanDays();
+  }
+
+  @Override
+  public final double getLateFeePerDay() {
+    return policy.getLateFeePerDay();
+  }
+
+  @Override
+  public final double calculateLateFee(long daysLate) {
+    return policy.calculateLateFee(daysLate);
+  }
 
   @Override
   public String toString() {
     return "Book{" +
-        "title='" + title + '\'' +
-        ", author='" + author + '\'' +
-        ", isbn='" + isbn + '\'' +
-        ", year=" + year +
+        "title='" + getTitle() + '\'' +
+        ", author='" + getAuthor() + '\'' +
+        ", isbn='" + getIsbn() + '\'' +
+        ", year=" + getYear() +
         ", type=" + getType() +
-        ", status=" + state.getStatusDisplay() +
+        ", status=" + getState().getStatusDisplay() +
         '}';
   }
 
@@ -93,7 +188,7 @@ public abstract class Book implements ILibraryItem, Cloneable {
     info.append(String.format("ISBN: %s\n", getIsbn()));
     info.append(String.format("Year: %d\n", getYear()));
     info.append(String.format("Type: %s\n", getType()));
-    info.append(String.format("Status: %s", state.getStatusDisplay()));
+    info.append(String.format("Status: %s", getState().getStatusDisplay()));
     return info.toString();
   }
 }
\ No newline at end of file
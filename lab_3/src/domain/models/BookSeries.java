@@ -1,25 +1,72 @@
 package domain.models;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import domain.models.states.ILibraryItemState;
 import domain.models.states.SeriesAvailableState;
 
 public class BookSeries implements ILibraryItem {
+  private static final AtomicReferenceFieldUpdater<BookSeries, ILibraryItemState> STATE =
+      AtomicReferenceFieldUpdater.newUpdater(BookSeries.class, ILibraryItemState.class, "state");
+
   private final String title;
   private final List<ILibraryItem> items;
-  private ILibraryItemState state;
+  private final List<ILibraryItem> itemsView;
+  private final AtomicInteger availableItems;
+  private final List<BookSeries> parentSeries;
+  private final AtomicInteger membershipVersion;
+  private volatile ILibraryItemState state;
+  private volatile LateFee lateFee;
 
   public BookSeries(String title) {
     this.title = title;
-    this.items = new ArrayList<>();
+    this.items = new CopyOnWriteArrayList<>();
+    this.itemsView = Collections.unmodifiableList(items);
+    this.availableItems = new AtomicInteger();
+    this.parentSeries = new CopyOnWriteArrayList<>();
+    this.membershipVersion = new AtomicInteger();
     this.state = new SeriesAvailableState();
     this.state.setContext(this);
   }
 
+  // Callers must keep the item's state from changing while it is added, or the
+  // available count can drift
   public void addItem(ILibraryItem item) {
+    item.addParentSeries(this);
     items.add(item);
+    invalidateLateFee();
+    if (item.getState().isAvailable()) {
+      availableItems.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void addParentSeries(BookSeries series) {
+    parentSeries.add(series);
+  }
+
+  // Adding a member changes this series' rate and that of every series containing it.
+  // Bumping the version after the member is in the list means a rate computed from
+  // the old list is tagged with an old version and never served again
+  private void invalidateLateFee() {
+    membershipVersion.incrementAndGet();
+    parentSeries.forEach(BookSeries::invalidateLateFee);
+  }
+
+  // Called by a member after it swapped `previous` for `next`
+  public static void notifyAvailabilityChange(List<BookSeries> parents, ILibraryItemState previous,
+      ILibraryItemState next) {
+    if (parents.isEmpty() || previous == null || previous.isAvailable() == next.isAvailable()) {
+      return;
+    }
+    int delta = next.isAvailable() ? 1 : -1;
+    for (BookSeries series : parents) {
+      series.availableItems.addAndGet(delta);
+    }
   }
 
   @Override
@@ -29,8 +76,17 @@ public class BookSeries implements ILibraryItem {
 
   @Override
   public void setState(ILibraryItemState state) {
-    this.state = state;
     state.setContext(this);
+    notifyAvailabilityChange(parentSeries, STATE.getAndSet(this, state), state);
+  }
+
+  @Override
+  public boolean compareAndSetState(ILibraryItemState expected, ILibraryItemState next) {
+    if (!STATE.compareAndSet(this, expected, next)) {
+      return false;
+    }
+    notifyAvailabilityChange(parentSeries, expected, next);
+    return true;
   }
 
   @Override
@@ -38,11 +94,26 @@ public class BookSeries implements ILibraryItem {
     return state;
   }
 
+  // Sum of the members' daily rates, kept together with the membership version it
+  // was computed at and used only while that version is current
+  @Override
+  public double getLateFeePerDay() {
+    int version = membershipVersion.get();
+    LateFee cached = lateFee;
+    if (cached != null && cached.version == version) {
+      return cached.rate;
+    }
+    double rate = 0;
+    for (ILibraryItem item : items) {
+      rate += item.getLateFeePerDay();
+    }
+    lateFee = new LateFee(version, rate);
+    return rate;
+  }
+
   @Override
   public double calculateLateFee(long daysLate) {
-    return items.stream()
-        .mapToDouble(item -> item.calculateLateFee(daysLate))
-        .sum();
+    return getLateFeePerDay() * daysLate;
   }
 
   @Override
@@ -54,11 +125,26 @@ public class BookSeries implements ILibraryItem {
     return info.toString();
   }
 
+  // Read-only view; it reflects members added later
   public List<ILibraryItem> getItems() {
-    return new ArrayList<>(items);
+    return itemsView;
+  }
+
+  public int getAvailableItemCount() {
+    return availableItems.get();
   }
 
   public boolean areAllItemsAvailable() {
-    return items.stream().allMatch(item -> item.getState().isAvailable());
+    return availableItems.get() == items.size();
+  }
+
+  private static final class LateFee {
+    private final int version;
+    private final double rate;
+
+    private LateFee(int version, double rate) {
+      this.version = version;
+      this.rate = rate;
+    }
   }
 }
\ No newline at end of file
@@ -1,22 +1,29 @@
 package domain.models;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import domain.observer.ILibraryObserver;
+import domain.observer.LibraryEvent;
+import domain.observer.NotificationInbox;
 
 public class Borrower implements ILibraryObserver {
+  public static final int DEFAULT_INBOX_CAPACITY = 100;
+
   private String id;
   private String name;
   private List<Book> borrowedBooks;
-  private List<String> notifications;
+  private final NotificationInbox notifications;
 
   public Borrower(String id, String name) {
+    this(id, name, DEFAULT_INBOX_CAPACITY);
+  }
+
+  public Borrower(String id, String name, int inboxCapacity) {
     this.id = id;
     this.name = name;
-    this.borrowedBooks = new ArrayList<>();
-    this.notifications = new ArrayList<>();
+    this.borrowedBooks = new CopyOnWriteArrayList<>();
+    this.notifications = new NotificationInbox(inboxCapacity);
   }
 
   public String getId() {
@@ -31,11 +38,11 @@ public class Borrower implements ILibraryObserver {
     return borrowedBooks;
   }
 
-  public List<String> getNotifications() {
-    return new ArrayList<>(notifications);
+  public synchronized List<String> getNotifications() {
+    return notifications.snapshot();
   }
 
-  public void clearNotifications() {
+  public synchronized void clearNotifications() {
     notifications.clear();
   }
 
@@ -44,14 +51,10 @@ public class Borrower implements ILibraryObserver {
     return "Borrower{id='" + id + "', name='" + name + "'}";
   }
 
+  // Repeated notices for the same item, event and loan (e.g. an overdue reminder
+  // on every sweep) are dropped with a single hash lookup
   @Override
-  public void update(String message) {
-    // Do not add duplicate notifications
-    if (notifications.stream().anyMatch(n -> n.contains(message))) {
-      return;
-    }
-
-    String timestamp = LocalDateTime.now().toString();
-    notifications.add(String.format("[%s] %s", timestamp, message));
+  public synchronized void update(LibraryEvent event) {
+    notifications.add(event);
   }
-}
\ No newline at end of file
+}
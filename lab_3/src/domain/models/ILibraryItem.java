@@ -9,6 +9,13 @@ public interface ILibraryItem {
 
   ILibraryItemState getState();
 
+  boolean compareAndSetState(ILibraryItemState expected, ILibraryItemState next);
+
+  // Registers a series that contains this item, so it hears about availability changes
+  void addParentSeries(BookSeries series);
+
+  double getLateFeePerDay();
+
   double calculateLateFee(long daysLate);
 
   String getDisplayInfo();
@@ -0,0 +1,66 @@
+package domain.models;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+
+// Loan limit and daily late fee for one (BookType, BookFormat) pair. Every
+// combination is built once from the enum rules, so a book answers fee and
+// loan-limit questions by reading two fields instead of walking decorators.
+// A null format means a book without a format and gets the type's base rules
+public final class LendingPolicy {
+  private static final Map<BookType, LendingPolicy> BASE = new EnumMap<>(BookType.class);
+  private static final Map<BookType, Map<BookFormat, LendingPolicy>> FORMATTED =
+      new EnumMap<>(BookType.class);
+
+  static {
+    for (BookType type : BookType.values()) {
+      BASE.put(type, new LendingPolicy(type, null, type.getBaseLoanDays(), type.getLateFeePerDay()));
+      Map<BookFormat, LendingPolicy> byFormat = new EnumMap<>(BookFormat.class);
+      for (BookFormat format : BookFormat.values()) {
+        byFormat.put(format, new LendingPolicy(type, format,
+            type.getBaseLoanDays() + format.getAdditionalLoanDays(),
+            type.getLateFeePerDay() * format.getLateFeeMultiplier()));
+      }
+      FORMATTED.put(type, byFormat);
+    }
+  }
+
+  private final BookType type;
+  private final BookFormat format;
+  private final int maxLoanDays;
+  private final double lateFeePerDay;
+
+  private LendingPolicy(BookType type, BookFormat format, int maxLoanDays, double lateFeePerDay) {
+    this.type = type;
+    this.format = format;
+    this.maxLoanDays = maxLoanDays;
+    this.lateFeePerDay = lateFeePerDay;
+  }
+
+  public static LendingPolicy of(BookType type, BookFormat format) {
+    return format == null ? BASE.get(type) : FORMATTED.get(type).get(format);
+  }
+
+  public BookType getType() {
+    return type;
+  }
+
+  public BookFormat getFormat() {
+    return format;
+  }
+
+  public int getMaxLoanDays() {
+    return maxLoanDays;
+  }
+
+  public double getLateFeePerDay() {
+    return lateFeePerDay;
+  }
+
+  public double calculateLateFee(long daysLate) {
+    return lateFeePerDay * daysLate;
+  }
+}
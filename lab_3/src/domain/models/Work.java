@@ -0,0 +1,46 @@
+package domain.models;
+
+import java.util.Objects;
+
+// Bibliographic data shared by every physical copy of the same title. Instances
+// are immutable; a database swaps each stored book's Work for the one in its
+// WorkPool, so a catalog holds one per title
+public final class Work {
+  private final String title;
+  private final String author;
+
+  Work(String title, String author) {
+    this.title = title;
+    this.author = author;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getAuthor() {
+    return author;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof Work)) {
+      return false;
+    }
+    Work work = (Work) other;
+    return title.equals(work.title) && author.equals(work.author);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(title, author);
+  }
+
+  @Override
+  public String toString() {
+    return "Work{title='" + title + "', author='" + author + "'}";
+  }
+}
@@ -0,0 +1,31 @@
+package domain.models;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns works and author names for one library database. Copies of the same
+// title stored in it share one Work, and works by the same author share one
+// author String, however the text reached us (console, CSV import, snapshot,
+// journal replay). The pool lives as long as its database, so works of a
+// discarded library go with it
+public class WorkPool {
+  private final Map<Work, Work> works = new ConcurrentHashMap<>();
+  private final Map<String, String> authors = new ConcurrentHashMap<>();
+
+  public Work intern(Work candidate) {
+    Work existing = works.get(candidate);
+    if (existing != null) {
+      return existing;
+    }
+    String sharedAuthor = authors.computeIfAbsent(candidate.getAuthor(), a -> a);
+    Work work = sharedAuthor == candidate.getAuthor()
+        ? candidate
+        : new Work(candidate.getTitle(), sharedAuthor);
+    existing = works.putIfAbsent(work, work);
+    return existing != null ? existing : work;
+  }
+
+  public int size() {
+    return works.size();
+  }
+}
@@ -1,28 +1,79 @@
 package domain.models.decorators;
 
+import java.util.function.BiConsumer;
+
 import domain.models.Book;
-import domain.models.enums.BookType;
+import domain.models.WorkPool;
+import domain.models.enums.BookFormat;
 
+// A book in a given format. The format's loan and fee rules are resolved once
+// into the wrapper's LendingPolicy, and the wrapper holds the loan state, so it
+// is the item that gets checked out. Bibliographic fields are forwarded to the
+// wrapped book. Wrapping a wrapper replaces its format rather than stacking
+// another one
 public abstract class BookDecorator extends Book {
-  protected Book book;
+  protected final Book book;
+
+  protected BookDecorator(Book book, BookFormat format) {
+    super(unwrap(book), format);
+    this.book = unwrap(book);
+  }
+
+  private static Book unwrap(Book book) {
+    return book instanceof BookDecorator ? ((BookDecorator) book).book : book;
+  }
+
+  public static Book wrap(Book book, BookFormat format) {
+    return switch (format) {
+      case HARDCOVER -> new HardcoverBook(book);
+      case PAPERBACK -> new PaperbackBook(book);
+      case DIGITAL -> new DigitalBook(book);
+    };
+  }
+
+  @Override
+  public Book clone() {
+    return wrap(book.clone(), getFormat());
+  }
 
-  public BookDecorator(Book book) {
-    super(book.getTitle(), book.getAuthor(), book.getIsbn(), book.getYear());
-    this.book = book;
+  @Override
+  public void shareWork(WorkPool pool) {
+    super.shareWork(pool);
+    book.shareWork(pool);
+  }
+
+  @Override
+  public String getTitle() {
+    return book.getTitle();
+  }
+
+  @Override
+  public String getAuthor() {
+    return book.getAuthor();
+  }
+
+  @Override
+  public String getIsbn() {
+    return book.getIsbn();
+  }
+
+  @Override
+  public int getYear() {
+    return book.getYear();
   }
 
   @Override
-  public BookType getType() {
-    return book.getType();
+  public String setISBN(String isbn) {
+    return book.setISBN(isbn);
   }
 
   @Override
-  public double calculateLateFee(long daysLate) {
-    return book.calculateLateFee(daysLate);
+  public int setYear(int year) {
+    return book.setYear(year);
   }
 
   @Override
-  public int getMaxLoanDays() {
-    return book.getMaxLoanDays();
+  public void setIsbnChangeListener(BiConsumer<String, Book> isbnChangeListener) {
+    book.setIsbnChangeListener(isbnChangeListener);
   }
-}
\ No newline at end of file
+}
@@ -1,22 +1,10 @@
 package domain.models.decorators;
 
 import domain.models.*;
+import domain.models.enums.BookFormat;
 
 public class HardcoverBook extends BookDecorator {
-  private static final double LATE_FEE_MULTIPLIER = 1.5;
-  private static final int ADDITIONAL_LOAN_DAYS = 7;
-
   public HardcoverBook(Book book) {
-    super(book);
-  }
-
-  @Override
-  public double calculateLateFee(long daysLate) {
-    return super.calculateLateFee(daysLate) * LATE_FEE_MULTIPLIER;
-  }
-
-  @Override
-  public int getMaxLoanDays() {
-    return super.getMaxLoanDays() + ADDITIONAL_LOAN_DAYS;
+    super(book, BookFormat.HARDCOVER);
   }
-}
\ No newline at end of file
+}
@@ -1,7 +1,23 @@
 package domain.models.enums;
 
 public enum BookFormat {
-  HARDCOVER,
-  PAPERBACK,
-  DIGITAL
+  HARDCOVER(1.5, 7),
+  PAPERBACK(1.2, 3),
+  DIGITAL(1, 0);
+
+  private final double lateFeeMultiplier;
+  private final int additionalLoanDays;
+
+  BookFormat(double lateFeeMultiplier, int additionalLoanDays) {
+    this.lateFeeMultiplier = lateFeeMultiplier;
+    this.additionalLoanDays = additionalLoanDays;
+  }
+
+  public double getLateFeeMultiplier() {
+    return lateFeeMultiplier;
+  }
+
+  public int getAdditionalLoanDays() {
+    return additionalLoanDays;
+  }
 }
@@ -1,5 +1,22 @@
 package domain.models.enums;
 
 public enum BookType {
-    FICTION, NON_FICTION
-}
\ No newline at end of file
+    FICTION(21, 0.50),
+    NON_FICTION(14, 0.75);
+
+    private final int baseLoanDays;
+    private final double lateFeePerDay;
+
+    BookType(int baseLoanDays, double lateFeePerDay) {
+        this.baseLoanDays = baseLoanDays;
+        this.lateFeePerDay = lateFeePerDay;
+    }
+
+    public int getBaseLoanDays() {
+        return baseLoanDays;
+    }
+
+    public double getLateFeePerDay() {
+        return lateFeePerDay;
+    }
+}
@@ -3,13 +3,14 @@ package domain.models.states;
 import domain.models.Book;
 import domain.models.Borrower;
 import domain.models.ILibraryItem;
+import domain.observer.LibraryEventType;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 import util.LibraryException;
 
-public class BookAvailableState implements ILibraryItemState {
+public class BookAvailableState implements ILibraryItemState, IVersionedState {
   private Book book;
+  private int version;
 
   @Override
   public void setContext(ILibraryItem item) {
@@ -20,7 +21,31 @@ public class BookAvailableState implements ILibraryItemState {
   }
 
   @Override
-  public void checkOut(Borrower borrower, double loanPeriodDays) {
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
+  @Override
+  public void checkOut(Borrower borrower, double loanPeriodDays, LendingContext lending) {
+    ILibraryItemState newState = prepareCheckOut(borrower, loanPeriodDays, lending.today());
+    if (!book.compareAndSetState(this, newState)) {
+      throw new LibraryException("Book is already checked out");
+    }
+    newState.enter(this, lending);
+  }
+
+  @Override
+  public void returnItem(LendingContext lending) {
+    throw new LibraryException("Cannot return an available book");
+  }
+
+  @Override
+  public ILibraryItemState prepareCheckOut(Borrower borrower, double loanPeriodDays, LocalDate today) {
     if (loanPeriodDays > book.getMaxLoanDays()) {
       throw new LibraryException("Maximum loan period exceeded for this book type");
     }
@@ -28,21 +53,22 @@ public class BookAvailableState implements ILibraryItemState {
     BookCheckedOutState newState = new BookCheckedOutState();
     newState.setContext(book);
     newState.setBorrower(borrower);
-    newState.setDueDate(LocalDate.now().plusDays((long) loanPeriodDays));
-    book.setState(newState);
-
-    borrower.update(String.format(
-        "You have borrowed '%s'. Due date: %s",
-        book.getTitle(),
-        book.getState().getDueDate().format(DateTimeFormatter.ISO_LOCAL_DATE)));
-
+    newState.setDueDate(today.plusDays((long) loanPeriodDays));
+    return newState;
   }
 
   @Override
-  public void returnItem() {
+  public ILibraryItemState prepareReturn() {
     throw new LibraryException("Cannot return an available book");
   }
 
+  @Override
+  public void enter(ILibraryItemState previous, LendingContext lending) {
+    lending.getDueDateQueue().cancel(book);
+    lending.getEventBus().publish(LibraryEventType.RETURN, book,
+        previous.getBorrower(), previous.getDueDate());
+  }
+
   @Override
   public boolean isAvailable() {
     return true;
@@ -64,6 +90,6 @@ public class BookAvailableState implements ILibraryItemState {
   }
 
   @Override
-  public void checkDueDate() {
+  public void checkDueDate(LocalDate today, LendingContext lending) {
   }
-}
\ No newline at end of file
+}
@@ -3,16 +3,18 @@ package domain.models.states;
 import domain.models.Book;
 import domain.models.Borrower;
 import domain.models.ILibraryItem;
+import domain.observer.LibraryEventType;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 
 import util.LibraryException;
 
-public class BookCheckedOutState implements ILibraryItemState {
+public class BookCheckedOutState implements ILibraryItemState, IVersionedState {
   private Book book;
   private Borrower borrower;
   private LocalDate dueDate;
+  private int version;
 
   @Override
   public void setContext(ILibraryItem item) {
@@ -31,19 +33,45 @@ public class BookCheckedOutState implements ILibraryItemState {
   }
 
   @Override
-  public void checkOut(Borrower borrower, double loanPeriodDays) {
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
+  @Override
+  public void checkOut(Borrower borrower, double loanPeriodDays, LendingContext lending) {
+    throw new LibraryException("Book is already checked out");
+  }
+
+  @Override
+  public void returnItem(LendingContext lending) {
+    ILibraryItemState newState = prepareReturn();
+    if (!book.compareAndSetState(this, newState)) {
+      throw new LibraryException("Book is not checked out");
+    }
+    newState.enter(this, lending);
+  }
+
+  @Override
+  public ILibraryItemState prepareCheckOut(Borrower borrower, double loanPeriodDays, LocalDate today) {
     throw new LibraryException("Book is already checked out");
   }
 
   @Override
-  public void returnItem() {
+  public ILibraryItemState prepareReturn() {
     BookAvailableState newState = new BookAvailableState();
     newState.setContext(book);
-    book.setState(newState);
+    return newState;
+  }
 
-    borrower.update(String.format(
-        "You have returned '%s'. Thank you!",
-        book.getTitle()));
+  @Override
+  public void enter(ILibraryItemState previous, LendingContext lending) {
+    lending.getDueDateQueue().schedule(book, dueDate);
+    lending.getEventBus().publish(LibraryEventType.CHECKOUT, book, borrower, dueDate);
   }
 
   @Override
@@ -69,23 +97,16 @@ public class BookCheckedOutState implements ILibraryItemState {
   }
 
   @Override
-  public void checkDueDate() {
-    LocalDate today = LocalDate.now();
+  public void checkDueDate(LocalDate today, LendingContext lending) {
     if (dueDate != null) {
       long daysUntilDue = ChronoUnit.DAYS.between(today, dueDate);
 
       if (daysUntilDue == 2) {
-        borrower.update(String.format(
-            "REMINDER: Book '%s' is due in 2 days (Due: %s)",
-            book.getTitle(),
-            dueDate.format(DateTimeFormatter.ISO_LOCAL_DATE)));
+        lending.getEventBus().publish(LibraryEventType.REMINDER, book, borrower, dueDate);
 
         // For testing with double loan period, leave the <= 0 condition
       } else if (daysUntilDue <= 0) {
-        borrower.update(String.format(
-            "OVERDUE: Book '%s' was due on %s. Please return it as soon as possible.",
-            book.getTitle(),
-            dueDate.format(DateTimeFormatter.ISO_LOCAL_DATE)));
+        lending.getEventBus().publish(LibraryEventType.OVERDUE, book, borrower, dueDate);
       }
     }
   }
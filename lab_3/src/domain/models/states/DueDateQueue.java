@@ -0,0 +1,66 @@
+package domain.models.states;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import domain.models.ILibraryItem;
+
+// Checked-out items ordered by due date. Checkouts add an entry and returns remove
+// it, so a due-date sweep only visits items that are due soon or already overdue.
+// Each library database owns one, so its entries go away with the library.
+// Items are matched by equals, so two views of one stored book share an entry
+public class DueDateQueue {
+  public static final int REMINDER_WINDOW_DAYS = 2;
+
+  private final NavigableMap<LocalDate, Set<ILibraryItem>> itemsByDueDate;
+  private final Map<ILibraryItem, LocalDate> dueDates;
+
+  public DueDateQueue() {
+    itemsByDueDate = new TreeMap<>();
+    dueDates = new HashMap<>();
+  }
+
+  public synchronized void schedule(ILibraryItem item, LocalDate dueDate) {
+    cancel(item);
+    itemsByDueDate
+        .computeIfAbsent(dueDate, date -> new HashSet<>())
+        .add(item);
+    dueDates.put(item, dueDate);
+  }
+
+  public synchronized void cancel(ILibraryItem item) {
+    LocalDate dueDate = dueDates.remove(item);
+    if (dueDate == null) {
+      return;
+    }
+    Set<ILibraryItem> items = itemsByDueDate.get(dueDate);
+    items.remove(item);
+    if (items.isEmpty()) {
+      itemsByDueDate.remove(dueDate);
+    }
+  }
+
+  public synchronized List<ILibraryItem> itemsDueBy(LocalDate date) {
+    List<ILibraryItem> result = new ArrayList<>();
+    for (Set<ILibraryItem> items : itemsByDueDate.headMap(date, true).values()) {
+      result.addAll(items);
+    }
+    return result;
+  }
+
+  // Everything a due-date check can act on: items due within the reminder window or overdue
+  public List<ILibraryItem> itemsNeedingNotice(LocalDate today) {
+    return itemsDueBy(today.plusDays(REMINDER_WINDOW_DAYS));
+  }
+
+  public synchronized int size() {
+    return dueDates.size();
+  }
+}
@@ -7,9 +7,19 @@ import java.time.LocalDate;
 public interface ILibraryItemState {
   void setContext(ILibraryItem item);
 
-  void checkOut(Borrower borrower, double loanPeriodDays);
+  void checkOut(Borrower borrower, double loanPeriodDays, LendingContext lending);
 
-  void returnItem();
+  void returnItem(LendingContext lending);
+
+  // Builds and validates the state a checkout would move to, without installing it
+  ILibraryItemState prepareCheckOut(Borrower borrower, double loanPeriodDays, LocalDate today);
+
+  // Builds the state a return would move to, without installing it
+  ILibraryItemState prepareReturn();
+
+  // Runs the effects of entering this state (due-date queue, notices) once it
+  // has been installed in place of `previous`
+  void enter(ILibraryItemState previous, LendingContext lending);
 
   boolean isAvailable();
 
@@ -19,5 +29,5 @@ public interface ILibraryItemState {
 
   LocalDate getDueDate();
 
-  void checkDueDate();
+  void checkDueDate(LocalDate today, LendingContext lending);
 }
\ No newline at end of file
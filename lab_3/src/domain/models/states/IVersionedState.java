@@ -0,0 +1,10 @@
+package domain.models.states;
+
+// A loan state read from a store that stamps every change to a row with a new
+// version. The store installs a state only over the one carrying the row's
+// current version, and stamps the state it installs; 0 means never stamped
+public interface IVersionedState {
+  int getVersion();
+
+  void setVersion(int version);
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package domain.models.states;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+import domain.observer.LibraryEventBus;
+
+// What a loan transition needs from the library it happens in: the library's
+// clock, the due-date queue its loans are scheduled on and the bus its notices
+// go out on. Each facade builds its own, so two libraries never share a clock
+public class LendingContext {
+  private final Clock clock;
+  private final DueDateQueue dueDateQueue;
+  private final LibraryEventBus eventBus;
+
+  public LendingContext(Clock clock, DueDateQueue dueDateQueue, LibraryEventBus eventBus) {
+    this.clock = clock;
+    this.dueDateQueue = dueDateQueue;
+    this.eventBus = eventBus;
+  }
+
+  public LocalDate today() {
+    return LocalDate.now(clock);
+  }
+
+  public Clock getClock() {
+    return clock;
+  }
+
+  public DueDateQueue getDueDateQueue() {
+    return dueDateQueue;
+  }
+
+  public LibraryEventBus getEventBus() {
+    return eventBus;
+  }
+}
@@ -3,8 +3,8 @@ package domain.models.states;
 import domain.models.BookSeries;
 import domain.models.Borrower;
 import domain.models.ILibraryItem;
+import domain.observer.LibraryEventType;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 import util.LibraryException;
 
@@ -20,30 +20,43 @@ public class SeriesAvailableState implements ILibraryItemState {
   }
 
   @Override
-  public void checkOut(Borrower borrower, double loanPeriodDays) {
+  public void checkOut(Borrower borrower, double loanPeriodDays, LendingContext lending) {
     if (!series.areAllItemsAvailable()) {
       throw new LibraryException("Not all items in series are available");
     }
 
-    series.getItems().forEach(item -> item.getState().checkOut(borrower, loanPeriodDays));
+    LocalDate today = lending.today();
+    SeriesTransition.apply(series, this, prepareCheckOut(borrower, loanPeriodDays, today),
+        member -> member.prepareCheckOut(borrower, loanPeriodDays, today),
+        "Series changed during checkout", lending);
+  }
+
+  @Override
+  public void returnItem(LendingContext lending) {
+    throw new LibraryException("Cannot return an available series");
+  }
 
+  @Override
+  public ILibraryItemState prepareCheckOut(Borrower borrower, double loanPeriodDays, LocalDate today) {
     SeriesCheckedOutState newState = new SeriesCheckedOutState();
     newState.setContext(series);
     newState.setBorrower(borrower);
-    newState.setDueDate(LocalDate.now().plusDays((long) loanPeriodDays));
-    series.setState(newState);
-
-    borrower.update(String.format(
-        "You have borrowed '%s'. Due date: %s",
-        series.getTitle(),
-        series.getState().getDueDate().format(DateTimeFormatter.ISO_LOCAL_DATE)));
+    newState.setDueDate(today.plusDays((long) loanPeriodDays));
+    return newState;
   }
 
   @Override
-  public void returnItem() {
+  public ILibraryItemState prepareReturn() {
     throw new LibraryException("Cannot return an available series");
   }
 
+  @Override
+  public void enter(ILibraryItemState previous, LendingContext lending) {
+    lending.getDueDateQueue().cancel(series);
+    lending.getEventBus().publish(LibraryEventType.RETURN, series,
+        previous.getBorrower(), previous.getDueDate());
+  }
+
   @Override
   public boolean isAvailable() {
     return true;
@@ -65,7 +78,7 @@ public class SeriesAvailableState implements ILibraryItemState {
   }
 
   @Override
-  public void checkDueDate() {
+  public void checkDueDate(LocalDate today, LendingContext lending) {
 
   }
 }
\ No newline at end of file
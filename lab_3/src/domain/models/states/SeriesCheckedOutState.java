@@ -3,6 +3,7 @@ package domain.models.states;
 import domain.models.BookSeries;
 import domain.models.Borrower;
 import domain.models.ILibraryItem;
+import domain.observer.LibraryEventType;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
@@ -31,23 +32,32 @@ public class SeriesCheckedOutState implements ILibraryItemState {
   }
 
   @Override
-  public void checkOut(Borrower borrower, double loanPeriodDays) {
+  public void checkOut(Borrower borrower, double loanPeriodDays, LendingContext lending) {
     throw new LibraryException("Series is already checked out");
   }
 
   @Override
-  public void returnItem() {
-    // Return all items in the series
-    series.getItems().forEach(item -> item.getState().returnItem());
+  public void returnItem(LendingContext lending) {
+    SeriesTransition.apply(series, this, prepareReturn(), ILibraryItemState::prepareReturn,
+        "Series changed during return", lending);
+  }
+
+  @Override
+  public ILibraryItemState prepareCheckOut(Borrower borrower, double loanPeriodDays, LocalDate today) {
+    throw new LibraryException("Series is already checked out");
+  }
 
-    // Then transition to available state
+  @Override
+  public ILibraryItemState prepareReturn() {
     SeriesAvailableState newState = new SeriesAvailableState();
     newState.setContext(series);
-    series.setState(newState);
+    return newState;
+  }
 
-    borrower.update(String.format(
-        "You have returned '%s'. Thank you!",
-        series.getTitle()));
+  @Override
+  public void enter(ILibraryItemState previous, LendingContext lending) {
+    lending.getDueDateQueue().schedule(series, dueDate);
+    lending.getEventBus().publish(LibraryEventType.CHECKOUT, series, borrower, dueDate);
   }
 
   @Override
@@ -73,21 +83,14 @@ public class SeriesCheckedOutState implements ILibraryItemState {
   }
 
   @Override
-  public void checkDueDate() {
-    LocalDate today = LocalDate.now();
+  public void checkDueDate(LocalDate today, LendingContext lending) {
     if (dueDate != null) {
       long daysUntilDue = ChronoUnit.DAYS.between(today, dueDate);
 
       if (daysUntilDue == 2) {
-        borrower.update(String.format(
-            "REMINDER: Book series '%s' is due in 2 days (Due: %s)",
-            series.getTitle(),
-            dueDate.format(DateTimeFormatter.ISO_LOCAL_DATE)));
+        lending.getEventBus().publish(LibraryEventType.REMINDER, series, borrower, dueDate);
       } else if (daysUntilDue <= 0) {
-        borrower.update(String.format(
-            "OVERDUE: Book series '%s' was due on %s. Please return it as soon as possible.",
-            series.getTitle(),
-            dueDate.format(DateTimeFormatter.ISO_LOCAL_DATE)));
+        lending.getEventBus().publish(LibraryEventType.OVERDUE, series, borrower, dueDate);
       }
     }
   }
@@ -0,0 +1,47 @@
+package domain.models.states;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import domain.models.BookSeries;
+import domain.models.ILibraryItem;
+import util.LibraryException;
+
+// Moves every member of a series, then the series itself, as one unit. All next
+// states are built and validated before anything changes; each one is then
+// installed with a compare-and-set, and if any member or the series was changed
+// concurrently the members already moved are put back. Due-date entries and
+// notices only go out after every swap has succeeded
+final class SeriesTransition {
+  private SeriesTransition() {
+  }
+
+  static void apply(BookSeries series, ILibraryItemState seriesFrom, ILibraryItemState seriesTo,
+      UnaryOperator<ILibraryItemState> prepareMember, String conflictMessage,
+      LendingContext lending) {
+    List<ILibraryItem> members = series.getItems();
+    int size = members.size();
+    ILibraryItemState[] previous = new ILibraryItemState[size];
+    ILibraryItemState[] next = new ILibraryItemState[size];
+    for (int i = 0; i < size; i++) {
+      previous[i] = members.get(i).getState();
+      next[i] = prepareMember.apply(previous[i]);
+    }
+
+    int applied = 0;
+    while (applied < size && members.get(applied).compareAndSetState(previous[applied], next[applied])) {
+      applied++;
+    }
+    if (applied < size || !series.compareAndSetState(seriesFrom, seriesTo)) {
+      for (int i = applied - 1; i >= 0; i--) {
+        members.get(i).compareAndSetState(next[i], previous[i]);
+      }
+      throw new LibraryException(conflictMessage);
+    }
+
+    for (int i = 0; i < size; i++) {
+      next[i].enter(previous[i], lending);
+    }
+    seriesTo.enter(seriesFrom, lending);
+  }
+}
@@ -1,5 +1,5 @@
 package domain.observer;
 
 public interface ILibraryObserver {
-  void update(String message);
-}
\ No newline at end of file
+  void update(LibraryEvent event);
+}
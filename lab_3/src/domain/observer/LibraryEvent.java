@@ -0,0 +1,106 @@
+package domain.observer;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+import domain.models.BookSeries;
+import domain.models.Borrower;
+import domain.models.ILibraryItem;
+
+// A state change captured as plain fields. The text shown to a borrower is only
+// built when someone reads it. Two events are equal when they concern the same
+// item, event type and loan, so repeated reminders collapse into one notice
+public final class LibraryEvent {
+  private final LibraryEventType type;
+  private final ILibraryItem item;
+  private final Borrower borrower;
+  private final LocalDate dueDate;
+  private final long timestampMillis;
+  private final ZoneId zone;
+
+  public LibraryEvent(LibraryEventType type, ILibraryItem item, Borrower borrower,
+      LocalDate dueDate, long timestampMillis, ZoneId zone) {
+    this.type = type;
+    this.item = item;
+    this.borrower = borrower;
+    this.dueDate = dueDate;
+    this.timestampMillis = timestampMillis;
+    this.zone = zone;
+  }
+
+  public LibraryEventType getType() {
+    return type;
+  }
+
+  public ILibraryItem getItem() {
+    return item;
+  }
+
+  public Borrower getBorrower() {
+    return borrower;
+  }
+
+  public LocalDate getDueDate() {
+    return dueDate;
+  }
+
+  public long getTimestampMillis() {
+    return timestampMillis;
+  }
+
+  public String getMessage() {
+    String kind = item instanceof BookSeries ? "Book series" : "Book";
+    switch (type) {
+      case CHECKOUT:
+        return String.format("You have borrowed '%s'. Due date: %s",
+            item.getTitle(), formatDate(dueDate));
+      case RETURN:
+        return String.format("You have returned '%s'. Thank you!", item.getTitle());
+      case REMINDER:
+        return String.format("REMINDER: %s '%s' is due in 2 days (Due: %s)",
+            kind, item.getTitle(), formatDate(dueDate));
+      case OVERDUE:
+        return String.format("OVERDUE: %s '%s' was due on %s. Please return it as soon as possible.",
+            kind, item.getTitle(), formatDate(dueDate));
+      default:
+        return type.name();
+    }
+  }
+
+  public String format() {
+    LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), zone);
+    return String.format("[%s] %s", timestamp, getMessage());
+  }
+
+  private static String formatDate(LocalDate date) {
+    return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof LibraryEvent)) {
+      return false;
+    }
+    LibraryEvent event = (LibraryEvent) other;
+    return item.equals(event.item) && type == event.type
+        && Objects.equals(dueDate, event.dueDate);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * item.hashCode() + type.hashCode())
+        + Objects.hashCode(dueDate);
+  }
+
+  @Override
+  public String toString() {
+    return format();
+  }
+}
@@ -0,0 +1,110 @@
+package domain.observer;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import domain.models.Borrower;
+import domain.models.ILibraryItem;
+
+// Collects events from state transitions on a lock-free queue and hands them to
+// observers later. Publishing only reads the clock and enqueues; delivery happens
+// when a reader or the reminder scheduler dispatches the queue. Besides the
+// borrower on the event, any number of observers can subscribe to an item.
+// Every library has its own bus, stamping events with that library's clock
+public class LibraryEventBus {
+  private final Queue<LibraryEvent> pending = new ConcurrentLinkedQueue<>();
+  private final Map<ILibraryItem, List<ILibraryObserver>> subscribers = new ConcurrentHashMap<>();
+  private final Clock clock;
+
+  public LibraryEventBus(Clock clock) {
+    this.clock = clock;
+  }
+
+  public void publish(LibraryEventType type, ILibraryItem item, Borrower borrower, LocalDate dueDate) {
+    pending.offer(new LibraryEvent(type, item, borrower, dueDate, clock.millis(), clock.getZone()));
+  }
+
+  public void subscribe(ILibraryItem item, ILibraryObserver observer) {
+    subscribers.computeIfAbsent(item, i -> new CopyOnWriteArrayList<>()).add(observer);
+  }
+
+  public void unsubscribe(ILibraryItem item, ILibraryObserver observer) {
+    List<ILibraryObserver> observers = subscribers.get(item);
+    if (observers != null) {
+      observers.remove(observer);
+    }
+  }
+
+  public int pendingCount() {
+    return pending.size();
+  }
+
+  // Delivers every queued event on the calling thread, in publish order
+  public synchronized int dispatch() {
+    int delivered = 0;
+    LibraryEvent event;
+    while ((event = pending.poll()) != null) {
+      for (ILibraryObserver observer : recipientsOf(event)) {
+        observer.update(event);
+      }
+      delivered++;
+    }
+    return delivered;
+  }
+
+  // Same as dispatch(), but each observer receives its events in order on its own
+  // task. Returns once every task has finished
+  public synchronized int dispatch(ExecutorService executor) {
+    Map<ILibraryObserver, List<LibraryEvent>> eventsByObserver = new IdentityHashMap<>();
+    int delivered = 0;
+    LibraryEvent event;
+    while ((event = pending.poll()) != null) {
+      for (ILibraryObserver observer : recipientsOf(event)) {
+        eventsByObserver.computeIfAbsent(observer, o -> new ArrayList<>()).add(event);
+      }
+      delivered++;
+    }
+
+    List<Future<?>> tasks = new ArrayList<>(eventsByObserver.size());
+    eventsByObserver.forEach((observer, events) ->
+        tasks.add(executor.submit(() -> events.forEach(observer::update))));
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        System.err.println("Notification delivery failed: " + e.getCause());
+      }
+    }
+    return delivered;
+  }
+
+  private List<ILibraryObserver> recipientsOf(LibraryEvent event) {
+    List<ILibraryObserver> recipients = new ArrayList<>(2);
+    if (event.getBorrower() != null) {
+      recipients.add(event.getBorrower());
+    }
+    List<ILibraryObserver> itemObservers = subscribers.get(event.getItem());
+    if (itemObservers != null) {
+      for (ILibraryObserver observer : itemObservers) {
+        if (observer != event.getBorrower()) {
+          recipients.add(observer);
+        }
+      }
+    }
+    return recipients;
+  }
+}
@@ -0,0 +1,8 @@
+package domain.observer;
+
+public enum LibraryEventType {
+  CHECKOUT,
+  RETURN,
+  REMINDER,
+  OVERDUE
+}
@@ -0,0 +1,68 @@
+package domain.observer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Fixed-size ring buffer of events. Once full, the oldest event is dropped;
+// duplicates are rejected with one hash lookup instead of a scan. Events are
+// only turned into text when the inbox is read
+public class NotificationInbox {
+  private final LibraryEvent[] events;
+  private final Set<LibraryEvent> retained;
+  private int head;
+  private int size;
+
+  public NotificationInbox(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Inbox capacity must be positive");
+    }
+    this.events = new LibraryEvent[capacity];
+    this.retained = new HashSet<>();
+  }
+
+  public boolean contains(LibraryEvent event) {
+    return retained.contains(event);
+  }
+
+  public boolean add(LibraryEvent event) {
+    if (!retained.add(event)) {
+      return false;
+    }
+    if (size == events.length) {
+      retained.remove(events[head]);
+      events[head] = null;
+      head = (head + 1) % events.length;
+      size--;
+    }
+    events[(head + size) % events.length] = event;
+    size++;
+    return true;
+  }
+
+  public List<String> snapshot() {
+    List<String> copy = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      copy.add(events[(head + i) % events.length].format());
+    }
+    return copy;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      events[(head + i) % events.length] = null;
+    }
+    retained.clear();
+    head = 0;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return events.length;
+  }
+}
@@ -1,10 +1,12 @@
 package service;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import domain.database.ILibraryDatabase;
 import domain.factory.BookCreator;
@@ -12,8 +14,12 @@ import domain.factory.FictionSection;
 import domain.factory.NonFictionSection;
 import domain.models.Book;
 import domain.models.Borrower;
+import domain.models.ILibraryItem;
+import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 import domain.models.states.ILibraryItemState;
+import domain.models.states.LendingContext;
+import domain.observer.LibraryEventBus;
 import service.interfaces.IBookService;
 import util.LibraryException;
 import util.ValidationUtils;
@@ -21,9 +27,22 @@ import util.ValidationUtils;
 public class BookService implements IBookService {
   private final ILibraryDatabase database;
   private final Map<BookType, BookCreator> factories;
+  private final LendingContext lending;
+  private final LockManager lockManager;
 
   public BookService(ILibraryDatabase database) {
+    this(database, Clock.systemDefaultZone());
+  }
+
+  public BookService(ILibraryDatabase database, Clock clock) {
+    this(database, new LendingContext(clock, database.getDueDateQueue(), new LibraryEventBus(clock)),
+        new LockManager());
+  }
+
+  public BookService(ILibraryDatabase database, LendingContext lending, LockManager lockManager) {
     this.database = database;
+    this.lending = lending;
+    this.lockManager = lockManager;
     this.factories = new HashMap<>();
     initializeFactories();
   }
@@ -33,7 +52,8 @@ public class BookService implements IBookService {
     factories.put(BookType.NON_FICTION, new NonFictionSection());
   }
 
-  public Book addBook(String title, String author, String isbn, int year, BookType type) {
+  public Book addBook(String title, String author, String isbn, int year,
+      BookType type, BookFormat format) {
     ValidationUtils.validateIsbn(isbn);
     ValidationUtils.validateYear(year);
     ValidationUtils.validateName(title);
@@ -48,64 +68,85 @@ public class BookService implements IBookService {
       throw new LibraryException("Unsupported book type: " + type);
     }
 
-    Book book = factory.createBook(title, author, isbn, year);
-    database.addBook(book);
-    return book;
+    database.addBook(factory.createBook(title, author, isbn, year, format));
+    // The database may store its own copy, so hand back what it keeps
+    return database.findBookByIsbn(isbn);
   }
 
+  // The book and the borrower are locked together, so the availability check, the
+  // 3-book limit and both updates happen as one step
   public Book checkoutBook(String isbn, String borrowerId, double loanPeriodDays) {
     Book book = database.findBookByIsbn(isbn);
     if (book == null) {
       throw new LibraryException("Book not found");
     }
 
-    ILibraryItemState state = book.getState();
-    if (!state.isAvailable()) {
-      throw new LibraryException("Book is already checked out until " + state.getDueDate());
-    }
-
-    if (loanPeriodDays > book.getMaxLoanDays()) {
-      throw new LibraryException("Maximum loan period for this book type is " +
-          book.getMaxLoanDays() + " days");
-    }
-
     Borrower borrower = database.findBorrowerById(borrowerId);
     if (borrower == null) {
       throw new LibraryException("Borrower not found");
     }
-    if (borrower.getBorrowedBooks().size() >= 3) {
-      throw new LibraryException("Borrower has reached maximum number of books (3)");
-    }
 
-    state.checkOut(borrower, loanPeriodDays);
-    borrower.getBorrowedBooks().add(book);
-    return book;
+    return lockManager.withLocks(
+        List.of(LockManager.bookKey(isbn), LockManager.borrowerKey(borrowerId)), () -> {
+      ILibraryItemState state = book.getState();
+      if (!state.isAvailable()) {
+        throw new LibraryException("Book is already checked out until " + state.getDueDate());
+      }
+
+      if (loanPeriodDays > book.getMaxLoanDays()) {
+        throw new LibraryException("Maximum loan period for this book type is " +
+            book.getMaxLoanDays() + " days");
+      }
+
+      if (borrower.getBorrowedBooks().size() >= 3) {
+        throw new LibraryException("Borrower has reached maximum number of books (3)");
+      }
+
+      state.checkOut(borrower, loanPeriodDays, lending);
+      borrower.getBorrowedBooks().add(book);
+      return book;
+    });
   }
 
+  // The borrower is only known after reading the book's state, so it is read
+  // first without locks and confirmed again once both stripes are held; if the
+  // book changed hands in between, the attempt returns null and is retried
   public Book returnBook(String isbn) {
     Book book = database.findBookByIsbn(isbn);
     if (book == null) {
       throw new LibraryException("Book not found");
     }
 
-    ILibraryItemState state = book.getState();
-    if (state.isAvailable()) {
-      throw new LibraryException("Book is not checked out");
+    while (true) {
+      Borrower borrower = book.getState().getBorrower();
+      if (borrower == null) {
+        throw new LibraryException("Book is not checked out");
+      }
+
+      Book returned = lockManager.withLocks(
+          List.of(LockManager.bookKey(isbn), LockManager.borrowerKey(borrower.getId())), () -> {
+        ILibraryItemState state = book.getState();
+        if (state.getBorrower() != borrower) {
+          return null;
+        }
+
+        LocalDate dueDate = state.getDueDate();
+        LocalDate today = lending.today();
+
+        if (today.isAfter(dueDate)) {
+          long daysLate = ChronoUnit.DAYS.between(dueDate, today);
+          double lateFee = book.calculateLateFee(daysLate);
+          System.out.printf("Late fee for %d days: $%.2f%n", daysLate, lateFee);
+        }
+
+        state.returnItem(lending);
+        borrower.getBorrowedBooks().remove(book);
+        return book;
+      });
+      if (returned != null) {
+        return returned;
+      }
     }
-
-    LocalDate dueDate = state.getDueDate();
-    LocalDate today = LocalDate.now();
-
-    if (today.isAfter(dueDate)) {
-      long daysLate = ChronoUnit.DAYS.between(dueDate, today);
-      double lateFee = book.calculateLateFee(daysLate);
-      System.out.printf("Late fee for %d days: $%.2f%n", daysLate, lateFee);
-    }
-
-    Borrower borrower = state.getBorrower();
-    state.returnItem();
-    borrower.getBorrowedBooks().remove(book);
-    return book;
   }
 
   public List<Book> searchBooks(String searchTerm) {
@@ -115,6 +156,24 @@ public class BookService implements IBookService {
     return database.searchBooks(searchTerm.trim());
   }
 
+  public List<Book> searchBooks(String searchTerm, int offset, int limit) {
+    if (searchTerm == null || searchTerm.trim().isEmpty()) {
+      throw new LibraryException("Search term cannot be empty");
+    }
+    validatePage(offset, limit);
+    return database.searchBooks(searchTerm.trim(), offset, limit);
+  }
+
+  public List<String> autocomplete(String prefix, int limit) {
+    if (prefix == null || prefix.trim().isEmpty()) {
+      throw new LibraryException("Search prefix cannot be empty");
+    }
+    if (limit <= 0) {
+      throw new LibraryException("Completion limit must be positive");
+    }
+    return database.completePrefix(prefix.trim(), limit);
+  }
+
   public Book findBookByIsbn(String isbn) {
     ValidationUtils.validateIsbn(isbn);
     return database.findBookByIsbn(isbn);
@@ -124,6 +183,32 @@ public class BookService implements IBookService {
     return database.getAllBooks();
   }
 
+  public List<Book> findBooksByFormat(BookFormat format) {
+    return database.findBooksByFormat(format);
+  }
+
+  public int countBooks() {
+    return database.countBooks();
+  }
+
+  public List<Book> getBooks(int offset, int limit) {
+    validatePage(offset, limit);
+    return database.getBooks(offset, limit);
+  }
+
+  public Stream<Book> streamBooks() {
+    return database.streamBooks();
+  }
+
+  private void validatePage(int offset, int limit) {
+    if (offset < 0) {
+      throw new LibraryException("Page offset cannot be negative");
+    }
+    if (limit <= 0) {
+      throw new LibraryException("Page size must be positive");
+    }
+  }
+
   public Book createBookCopy(String existingIsbn, String newIsbn, int year) {
     Book existingBook = database.findBookByIsbn(existingIsbn);
     if (existingBook == null) {
@@ -137,13 +222,13 @@ public class BookService implements IBookService {
     newBook.setISBN(newIsbn);
     newBook.setYear(year);
     database.addBook(newBook);
-    return newBook;
+    return database.findBookByIsbn(newIsbn);
   }
 
   public void checkAllDueDates() {
-    List<Book> books = database.getAllBooks();
-    books.stream()
-        .filter(book -> !book.getState().isAvailable())
-        .forEach(book -> book.getState().checkDueDate());
+    LocalDate today = lending.today();
+    for (ILibraryItem item : lending.getDueDateQueue().itemsNeedingNotice(today)) {
+      item.getState().checkDueDate(today, lending);
+    }
   }
 }
\ No newline at end of file
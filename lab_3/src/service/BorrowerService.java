@@ -5,15 +5,24 @@ import java.util.List;
 import domain.database.ILibraryDatabase;
 import domain.models.Book;
 import domain.models.Borrower;
+import domain.observer.LibraryEventBus;
 import service.interfaces.IBorrowerService;
 import util.LibraryException;
 import util.ValidationUtils;
 
 public class BorrowerService implements IBorrowerService {
   private final ILibraryDatabase database;
+  private final LibraryEventBus eventBus;
+  private final int inboxCapacity;
 
-  public BorrowerService(ILibraryDatabase database) {
+  public BorrowerService(ILibraryDatabase database, LibraryEventBus eventBus) {
+    this(database, eventBus, Borrower.DEFAULT_INBOX_CAPACITY);
+  }
+
+  public BorrowerService(ILibraryDatabase database, LibraryEventBus eventBus, int inboxCapacity) {
     this.database = database;
+    this.eventBus = eventBus;
+    this.inboxCapacity = inboxCapacity;
   }
 
   public Borrower addBorrower(String id, String name) {
@@ -24,7 +33,7 @@ public class BorrowerService implements IBorrowerService {
       throw new LibraryException("Borrower ID already exists");
     }
 
-    Borrower borrower = new Borrower(id, name);
+    Borrower borrower = new Borrower(id, name, inboxCapacity);
     database.addBorrower(borrower);
     return borrower;
   }
@@ -47,6 +56,7 @@ public class BorrowerService implements IBorrowerService {
     if (borrower == null) {
       throw new LibraryException("Borrower not found");
     }
+    eventBus.dispatch();
     return borrower.getNotifications();
   }
 
@@ -55,6 +65,7 @@ public class BorrowerService implements IBorrowerService {
     if (borrower == null) {
       throw new LibraryException("Borrower not found");
     }
+    eventBus.dispatch();
     borrower.clearNotifications();
   }
 }
\ No newline at end of file
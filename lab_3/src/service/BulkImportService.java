@@ -0,0 +1,237 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import domain.database.ILibraryDatabase;
+import domain.factory.BookCreator;
+import domain.factory.FictionSection;
+import domain.factory.NonFictionSection;
+import domain.models.Book;
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+import service.interfaces.IBulkImportService;
+import util.LibraryException;
+import util.ValidationUtils;
+
+// Streams a CSV (or TSV, by extension) catalog with the columns
+// title, author, isbn, year, type, format. Rows are parsed and validated in
+// parallel per batch; bad rows are reported and skipped, the rest inserted together
+public class BulkImportService implements IBulkImportService {
+  private static final int BATCH_SIZE = 10_000;
+  private static final int COLUMN_COUNT = 6;
+  private static final List<String> HEADER = List.of("title", "author", "isbn", "year", "type", "format");
+
+  private final ILibraryDatabase database;
+  private final Map<BookType, BookCreator> factories;
+
+  public BulkImportService(ILibraryDatabase database) {
+    this.database = database;
+    this.factories = new EnumMap<>(BookType.class);
+    factories.put(BookType.FICTION, new FictionSection());
+    factories.put(BookType.NON_FICTION, new NonFictionSection());
+  }
+
+  @Override
+  public ImportReport importCatalog(Path file) {
+    return importCatalog(file, (batch, insert) -> insert.run());
+  }
+
+  @Override
+  public ImportReport importCatalog(Path file, BiConsumer<List<Book>, Runnable> insertBatch) {
+    char delimiter = file.getFileName().toString().toLowerCase().endsWith(".tsv") ? '\t' : ',';
+    ImportReport report = new ImportReport();
+    Set<String> seenIsbns = new HashSet<>();
+
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      List<SourceLine> batch = new ArrayList<>(BATCH_SIZE);
+      int lineNumber = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isBlank() || (lineNumber == 1 && isHeader(line, delimiter))) {
+          continue;
+        }
+        batch.add(new SourceLine(lineNumber, line));
+        if (batch.size() == BATCH_SIZE) {
+          importBatch(batch, delimiter, seenIsbns, insertBatch, report);
+          batch.clear();
+        }
+      }
+      importBatch(batch, delimiter, seenIsbns, insertBatch, report);
+    } catch (IOException e) {
+      throw new LibraryException("Cannot read catalog file: " + e.getMessage());
+    }
+    return report;
+  }
+
+  private void importBatch(List<SourceLine> batch, char delimiter, Set<String> seenIsbns,
+      BiConsumer<List<Book>, Runnable> insertBatch, ImportReport report) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    List<ParsedRow> rows = batch.parallelStream()
+        .map(line -> parse(line, delimiter))
+        .collect(Collectors.toList());
+
+    List<Book> books = new ArrayList<>(rows.size());
+    List<Integer> lineNumbers = new ArrayList<>(rows.size());
+    for (ParsedRow row : rows) {
+      if (row.error != null) {
+        report.addError(row.lineNumber, row.error);
+        continue;
+      }
+      String isbn = row.book.getIsbn();
+      if (!seenIsbns.add(isbn) || database.findBookByIsbn(isbn) != null) {
+        report.addError(row.lineNumber, "Book with ISBN " + isbn + " already exists");
+        continue;
+      }
+      books.add(row.book);
+      lineNumbers.add(row.lineNumber);
+    }
+
+    if (books.isEmpty()) {
+      return;
+    }
+    // A book added elsewhere since the check above makes the database reject the
+    // whole batch, which then stores nothing
+    try {
+      insertBatch.accept(books, () -> database.addBooks(books));
+    } catch (LibraryException e) {
+      for (int lineNumber : lineNumbers) {
+        report.addError(lineNumber, "Batch rejected: " + e.getMessage());
+      }
+      return;
+    }
+    report.addImported(books.size());
+  }
+
+  private ParsedRow parse(SourceLine source, char delimiter) {
+    List<String> fields = split(source.text, delimiter);
+    if (fields.size() != COLUMN_COUNT) {
+      return ParsedRow.failed(source.lineNumber,
+          "Expected " + COLUMN_COUNT + " columns but found " + fields.size());
+    }
+
+    try {
+      String title = fields.get(0);
+      String author = fields.get(1);
+      String isbn = fields.get(2);
+      int year = parseYear(fields.get(3));
+      BookType type = parseEnum(BookType.class, fields.get(4), "book type");
+      BookFormat format = parseEnum(BookFormat.class, fields.get(5), "book format");
+
+      String error = ValidationUtils.validateAll(title, author, isbn, year);
+      if (error != null) {
+        return ParsedRow.failed(source.lineNumber, error);
+      }
+
+      Book book = factories.get(type).createBook(title, author, isbn, year, format);
+      return ParsedRow.succeeded(source.lineNumber, book);
+    } catch (LibraryException e) {
+      return ParsedRow.failed(source.lineNumber, e.getMessage());
+    }
+  }
+
+  private static int parseYear(String value) {
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new LibraryException("Invalid year: " + value);
+    }
+  }
+
+  private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String name) {
+    try {
+      return Enum.valueOf(type, value.trim().toUpperCase().replace('-', '_').replace(' ', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new LibraryException("Unsupported " + name + ": " + value);
+    }
+  }
+
+  // Only a line naming the expected columns counts as a header; anything else on
+  // line 1 is data and gets validated like every other row
+  private static boolean isHeader(String line, char delimiter) {
+    List<String> fields = split(line, delimiter);
+    if (fields.size() != HEADER.size()) {
+      return false;
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      if (!fields.get(i).equalsIgnoreCase(HEADER.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Splits one line, honouring double-quoted fields with "" as an escaped quote
+  private static List<String> split(String line, char delimiter) {
+    List<String> fields = new ArrayList<>(COLUMN_COUNT);
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == delimiter) {
+        fields.add(field.toString().trim());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString().trim());
+    return fields;
+  }
+
+  private static final class SourceLine {
+    private final int lineNumber;
+    private final String text;
+
+    private SourceLine(int lineNumber, String text) {
+      this.lineNumber = lineNumber;
+      this.text = text;
+    }
+  }
+
+  private static final class ParsedRow {
+    private final int lineNumber;
+    private final Book book;
+    private final String error;
+
+    private ParsedRow(int lineNumber, Book book, String error) {
+      this.lineNumber = lineNumber;
+      this.book = book;
+      this.error = error;
+    }
+
+    static ParsedRow succeeded(int lineNumber, Book book) {
+      return new ParsedRow(lineNumber, book, null);
+    }
+
+    static ParsedRow failed(int lineNumber, String error) {
+      return new ParsedRow(lineNumber, null, error);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Counts what an import stored and keeps the rejected rows. The imported books
+// themselves are only in the database, so a large import is not held twice
+public class ImportReport {
+  private int importedCount;
+  private final List<String> errors;
+
+  public ImportReport() {
+    this.errors = new ArrayList<>();
+  }
+
+  void addImported(int count) {
+    importedCount += count;
+  }
+
+  void addError(int lineNumber, String message) {
+    errors.add(String.format("Line %d: %s", lineNumber, message));
+  }
+
+  public int getImportedCount() {
+    return importedCount;
+  }
+
+  public List<String> getErrors() {
+    return Collections.unmodifiableList(errors);
+  }
+}
@@ -0,0 +1,22 @@
+package service;
+
+import domain.database.ILibraryDatabase;
+import domain.models.ILibraryItem;
+import util.ValidationUtils;
+
+// Routes an item identifier to a book or a series with one index lookup and no
+// exceptions: ISBN-shaped identifiers name books, anything else is a series title
+public class ItemResolver {
+  private final ILibraryDatabase database;
+
+  public ItemResolver(ILibraryDatabase database) {
+    this.database = database;
+  }
+
+  public ILibraryItem resolve(String itemId) {
+    if (ValidationUtils.isValidIsbn(itemId)) {
+      return database.findBookByIsbn(itemId);
+    }
+    return database.findSeriesByTitle(itemId);
+  }
+}
@@ -0,0 +1,286 @@
+package service;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import domain.database.wal.LogRecord;
+import domain.database.wal.LogRecordType;
+import domain.database.wal.WriteAheadLog;
+import domain.models.Book;
+import domain.models.BookSeries;
+import domain.models.Borrower;
+import domain.models.ILibraryItem;
+import domain.models.enums.BookFormat;
+import domain.models.enums.BookType;
+import domain.observer.ILibraryObserver;
+import service.interfaces.ILibraryFacade;
+import util.LibraryException;
+
+// Journals every mutation before it is applied, and rebuilds the library from
+// the journal on startup. Each record is appended while holding the stripes the
+// operation itself takes, so records of conflicting operations are in the order
+// the operations were applied, and under EVERY_COMMIT a change is on disk before
+// anyone can see it. An operation that fails after its record was appended gets
+// an ABORT record, and replay skips it. A record that cannot be replayed at all
+// means the journal is not one this library wrote, and recovery stops there
+public class JournaledLibraryFacade implements ILibraryFacade {
+  private final LibraryFacade delegate;
+  private final WriteAheadLog log;
+  private final Clock clock;
+
+  public JournaledLibraryFacade(LibraryFacade delegate, WriteAheadLog log) {
+    this(delegate, log, Clock.systemDefaultZone());
+  }
+
+  public JournaledLibraryFacade(LibraryFacade delegate, WriteAheadLog log, Clock clock) {
+    this.delegate = delegate;
+    this.log = log;
+    this.clock = clock;
+  }
+
+  public int recover() {
+    List<LogRecord> records = log.getRecoveredRecords();
+    Set<Long> aborted = new HashSet<>();
+    for (LogRecord record : records) {
+      if (record.getType() == LogRecordType.ABORT) {
+        aborted.add(Long.parseLong(record.getField(0)));
+      }
+    }
+
+    int replayed = 0;
+    for (int position = 0; position < records.size(); position++) {
+      LogRecord record = records.get(position);
+      if (record.getType() == LogRecordType.ABORT || aborted.contains((long) position)) {
+        continue;
+      }
+      try {
+        replay(record);
+        replayed++;
+      } catch (LibraryException e) {
+        System.out.println("Skipping journal record " + record.getType() + ": " + e.getMessage());
+      } catch (RuntimeException e) {
+        throw new IllegalStateException("Malformed journal record " + position + " ("
+            + record.getType() + "): " + e, e);
+      }
+    }
+    return replayed;
+  }
+
+  private <T> T journaled(LogRecord record, Supplier<T> operation) {
+    long position = log.append(record);
+    try {
+      return operation.get();
+    } catch (RuntimeException e) {
+      log.append(new LogRecord(LogRecordType.ABORT, String.valueOf(position)));
+      throw e;
+    }
+  }
+
+  private void replay(LogRecord record) {
+    switch (record.getType()) {
+      case ADD_BOOK -> delegate.addBook(
+          record.getField(0),
+          record.getField(1),
+          record.getField(2),
+          Integer.parseInt(record.getField(3)),
+          BookType.valueOf(record.getField(4)),
+          record.getField(5).isEmpty() ? null : BookFormat.valueOf(record.getField(5)));
+      case COPY_BOOK -> delegate.createBookCopy(
+          record.getField(0),
+          record.getField(1),
+          Integer.parseInt(record.getField(2)));
+      case ADD_BORROWER -> delegate.addBorrower(record.getField(0), record.getField(1));
+      case ADD_SERIES -> delegate.createSeries(record.getField(0));
+      case ADD_BOOK_TO_SERIES -> delegate.addBookToSeries(record.getField(0), record.getField(1));
+      case CHECKOUT -> {
+        // Shorten the loan by the days since the original checkout so the due date is unchanged
+        LocalDate checkedOutOn = LocalDate.parse(record.getField(3));
+        long elapsedDays = ChronoUnit.DAYS.between(checkedOutOn, LocalDate.now(clock));
+        double days = Math.floor(Double.parseDouble(record.getField(2))) - elapsedDays;
+        delegate.checkoutItem(record.getField(0), record.getField(1), days);
+      }
+      case RETURN -> delegate.returnItem(record.getField(0));
+      case ABORT -> {
+      }
+    }
+  }
+
+  @Override
+  public Book addBook(String title, String author, String isbn, int year,
+      BookType type, BookFormat format) {
+    LogRecord record = addBookRecord(title, author, isbn, year, type, format);
+    return delegate.withLocks(List.of(LockManager.bookKey(isbn)), () -> journaled(record,
+        () -> delegate.addBook(title, author, isbn, year, type, format)));
+  }
+
+  // A book without a format is journaled with an empty format field
+  private static LogRecord addBookRecord(String title, String author, String isbn, int year,
+      BookType type, BookFormat format) {
+    return new LogRecord(LogRecordType.ADD_BOOK, title, author, isbn, String.valueOf(year),
+        type.name(), format == null ? "" : format.name());
+  }
+
+  @Override
+  public Book createBookCopy(String existingIsbn, String newIsbn, int year) {
+    LogRecord record = new LogRecord(LogRecordType.COPY_BOOK,
+        existingIsbn, newIsbn, String.valueOf(year));
+    return delegate.withLocks(List.of(LockManager.bookKey(newIsbn)), () -> journaled(record,
+        () -> delegate.createBookCopy(existingIsbn, newIsbn, year)));
+  }
+
+  @Override
+  public ImportReport importCatalog(Path file) {
+    return importCatalog(file, (batch, insert) -> insert.run());
+  }
+
+  // Each batch is journaled and stored under the stripes of all its ISBNs, as
+  // addBook does for one book. If the database rejects the batch, every record
+  // of it gets an ABORT
+  @Override
+  public ImportReport importCatalog(Path file, BiConsumer<List<Book>, Runnable> insertBatch) {
+    return delegate.importCatalog(file, (batch, insert) -> {
+      List<String> keys = new ArrayList<>(batch.size());
+      batch.forEach(book -> keys.add(LockManager.bookKey(book.getIsbn())));
+      delegate.withLocks(keys, () -> {
+        long[] positions = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+          Book book = batch.get(i);
+          positions[i] = log.append(addBookRecord(book.getTitle(), book.getAuthor(),
+              book.getIsbn(), book.getYear(), book.getType(), book.getFormat()));
+        }
+        try {
+          insertBatch.accept(batch, insert);
+        } catch (RuntimeException e) {
+          for (long position : positions) {
+            log.append(new LogRecord(LogRecordType.ABORT, String.valueOf(position)));
+          }
+          throw e;
+        }
+        return null;
+      });
+    });
+  }
+
+  @Override
+  public BookSeries createSeries(String title) {
+    LogRecord record = new LogRecord(LogRecordType.ADD_SERIES, title);
+    return delegate.withLocks(List.of(LockManager.seriesKey(title)), () -> journaled(record,
+        () -> delegate.createSeries(title)));
+  }
+
+  @Override
+  public void addBookToSeries(String seriesTitle, String isbn) {
+    LogRecord record = new LogRecord(LogRecordType.ADD_BOOK_TO_SERIES, seriesTitle, isbn);
+    delegate.withLocks(List.of(LockManager.seriesKey(seriesTitle), LockManager.bookKey(isbn)),
+        () -> journaled(record, () -> {
+          delegate.addBookToSeries(seriesTitle, isbn);
+          return null;
+        }));
+  }
+
+  @Override
+  public Borrower addBorrower(String id, String name) {
+    LogRecord record = new LogRecord(LogRecordType.ADD_BORROWER, id, name);
+    return delegate.withLocks(List.of(LockManager.borrowerKey(id)), () -> journaled(record,
+        () -> delegate.addBorrower(id, name)));
+  }
+
+  @Override
+  public ILibraryItem checkoutItem(String itemId, String borrowerId, double days) {
+    return delegate.withCheckoutLocks(itemId, borrowerId, () -> journaled(
+        new LogRecord(LogRecordType.CHECKOUT,
+            itemId, borrowerId, String.valueOf(days), LocalDate.now(clock).toString()),
+        () -> delegate.checkoutItem(itemId, borrowerId, days)));
+  }
+
+  @Override
+  public ILibraryItem returnItem(String itemId) {
+    return delegate.withReturnLocks(itemId, () -> journaled(
+        new LogRecord(LogRecordType.RETURN, itemId),
+        () -> delegate.returnItem(itemId)));
+  }
+
+  @Override
+  public Book findBookByIsbn(String isbn) {
+    return delegate.findBookByIsbn(isbn);
+  }
+
+  @Override
+  public List<Book> searchBooks(String searchTerm) {
+    return delegate.searchBooks(searchTerm);
+  }
+
+  @Override
+  public List<Book> searchBooks(String searchTerm, int offset, int limit) {
+    return delegate.searchBooks(searchTerm, offset, limit);
+  }
+
+  @Override
+  public List<String> autocomplete(String prefix, int limit) {
+    return delegate.autocomplete(prefix, limit);
+  }
+
+  @Override
+  public List<Book> getAllBooks() {
+    return delegate.getAllBooks();
+  }
+
+  @Override
+  public List<Book> findBooksByFormat(BookFormat format) {
+    return delegate.findBooksByFormat(format);
+  }
+
+  @Override
+  public int countBooks() {
+    return delegate.countBooks();
+  }
+
+  @Override
+  public List<Book> getBooks(int offset, int limit) {
+    return delegate.getBooks(offset, limit);
+  }
+
+  @Override
+  public Stream<Book> streamBooks() {
+    return delegate.streamBooks();
+  }
+
+  @Override
+  public List<BookSeries> getAllSeries() {
+    return delegate.getAllSeries();
+  }
+
+  @Override
+  public BookSeries findSeriesByTitle(String title) {
+    return delegate.findSeriesByTitle(title);
+  }
+
+  @Override
+  public List<String> getBorrowerNotifications(String borrowerId) {
+    return delegate.getBorrowerNotifications(borrowerId);
+  }
+
+  @Override
+  public void clearBorrowerNotifications(String borrowerId) {
+    delegate.clearBorrowerNotifications(borrowerId);
+  }
+
+  @Override
+  public void subscribeToItem(String itemId, ILibraryObserver observer) {
+    delegate.subscribeToItem(itemId, observer);
+  }
+
+  @Override
+  public void checkAllDueDates() {
+    delegate.checkAllDueDates();
+  }
+}
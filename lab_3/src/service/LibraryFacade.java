@@ -1,48 +1,74 @@
 package service;
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import domain.database.ILibraryDatabase;
 import domain.database.LibraryDatabase;
+import domain.database.snapshot.LibrarySnapshot;
 import domain.models.Book;
 import domain.models.BookSeries;
 import domain.models.Borrower;
 import domain.models.ILibraryItem;
-import domain.models.decorators.DigitalBook;
-import domain.models.decorators.HardcoverBook;
-import domain.models.decorators.PaperbackBook;
 import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 import domain.models.states.ILibraryItemState;
+import domain.models.states.LendingContext;
+import domain.observer.ILibraryObserver;
+import domain.observer.LibraryEventBus;
 import service.interfaces.IBookService;
 import service.interfaces.IBorrowerService;
+import service.interfaces.IBulkImportService;
 import service.interfaces.ILibraryFacade;
 import service.interfaces.ISeriesService;
 import util.LibraryException;
-import util.ValidationUtils;
 
 public class LibraryFacade implements ILibraryFacade {
+  private final ILibraryDatabase database;
   private final IBookService bookService;
   private final IBorrowerService borrowerService;
   private final ISeriesService seriesService;
+  private final IBulkImportService bulkImportService;
+  private final ItemResolver itemResolver;
+  private final LockManager lockManager;
+  private final LendingContext lending;
 
   public LibraryFacade() {
-    ILibraryDatabase database = LibraryDatabase.getInstance();
-    this.bookService = new BookService(database);
-    this.borrowerService = new BorrowerService(database);
-    this.seriesService = new SeriesService(database, bookService);
+    this(LibraryDatabase.getInstance());
+  }
+
+  public LibraryFacade(ILibraryDatabase database) {
+    this(database, Clock.systemDefaultZone());
+  }
+
+  // Every date used for loans, fees and notices comes from this clock. The facade
+  // has its own event bus, so libraries with different clocks can run side by side
+  public LibraryFacade(ILibraryDatabase database, Clock clock) {
+    LibraryEventBus eventBus = new LibraryEventBus(clock);
+    this.database = database;
+    this.lending = new LendingContext(clock, database.getDueDateQueue(), eventBus);
+    this.lockManager = new LockManager();
+    this.bookService = new BookService(database, lending, lockManager);
+    this.borrowerService = new BorrowerService(database, eventBus);
+    this.seriesService = new SeriesService(database, bookService, lockManager);
+    this.bulkImportService = new BulkImportService(database);
+    this.itemResolver = new ItemResolver(database);
+  }
+
+  // The clock, due-date queue and event bus this library's loans run against
+  public LendingContext getLendingContext() {
+    return lending;
   }
 
   @Override
   public Book addBook(String title, String author, String isbn, int year,
       BookType type, BookFormat format) {
-    Book baseBook = bookService.addBook(title, author, isbn, year, type);
-
-    return switch (format) {
-      case HARDCOVER -> new HardcoverBook(baseBook);
-      case PAPERBACK -> new PaperbackBook(baseBook);
-      case DIGITAL -> new DigitalBook(baseBook);
-    };
+    return bookService.addBook(title, author, isbn, year, type, format);
   }
 
   @Override
@@ -70,11 +96,41 @@ public class LibraryFacade implements ILibraryFacade {
     return bookService.searchBooks(searchTerm);
   }
 
+  @Override
+  public List<Book> searchBooks(String searchTerm, int offset, int limit) {
+    return bookService.searchBooks(searchTerm, offset, limit);
+  }
+
+  @Override
+  public List<String> autocomplete(String prefix, int limit) {
+    return bookService.autocomplete(prefix, limit);
+  }
+
   @Override
   public List<Book> getAllBooks() {
     return bookService.getAllBooks();
   }
 
+  @Override
+  public List<Book> findBooksByFormat(BookFormat format) {
+    return bookService.findBooksByFormat(format);
+  }
+
+  @Override
+  public int countBooks() {
+    return bookService.countBooks();
+  }
+
+  @Override
+  public List<Book> getBooks(int offset, int limit) {
+    return bookService.getBooks(offset, limit);
+  }
+
+  @Override
+  public Stream<Book> streamBooks() {
+    return bookService.streamBooks();
+  }
+
   @Override
   public Book findBookByIsbn(String isbn) {
     return bookService.findBookByIsbn(isbn);
@@ -85,6 +141,22 @@ public class LibraryFacade implements ILibraryFacade {
     return bookService.createBookCopy(existingIsbn, newIsbn, year);
   }
 
+  @Override
+  public ImportReport importCatalog(Path file) {
+    return importCatalog(file, (batch, insert) -> insert.run());
+  }
+
+  // Each batch is stored under the stripes of all its ISBNs, so a snapshot falls
+  // between batches
+  @Override
+  public ImportReport importCatalog(Path file, BiConsumer<List<Book>, Runnable> insertBatch) {
+    return bulkImportService.importCatalog(file, (batch, insert) -> {
+      List<String> keys = new ArrayList<>(batch.size());
+      batch.forEach(book -> keys.add(LockManager.bookKey(book.getIsbn())));
+      lockManager.withLocks(keys, () -> insertBatch.accept(batch, insert));
+    });
+  }
+
   @Override
   public Borrower addBorrower(String id, String name) {
     return borrowerService.addBorrower(id, name);
@@ -97,46 +169,122 @@ public class LibraryFacade implements ILibraryFacade {
       throw new LibraryException("Borrower not found");
     }
 
-    try {
-      ValidationUtils.validateIsbn(itemId);
+    ILibraryItem item = itemResolver.resolve(itemId);
+    if (item == null) {
+      throw new LibraryException("Item not found");
+    }
+    if (item instanceof Book) {
       return bookService.checkoutBook(itemId, borrowerId, days);
-    } catch (LibraryException e) {
-      BookSeries series = seriesService.findSeriesByTitle(itemId);
-      if (series == null) {
-        throw new LibraryException("Item not found");
-      }
+    }
 
-      ILibraryItemState state = series.getState();
+    return withSeriesLocks((BookSeries) item, LockManager.borrowerKey(borrowerId), () -> {
+      ILibraryItemState state = item.getState();
       if (!state.isAvailable()) {
         throw new LibraryException("Series is already checked out");
       }
 
-      state.checkOut(borrower, days);
-      return series;
-    }
+      state.checkOut(borrower, days, lending);
+      return item;
+    });
   }
 
   @Override
   public ILibraryItem returnItem(String itemId) {
-    try {
-      ValidationUtils.validateIsbn(itemId);
+    ILibraryItem item = itemResolver.resolve(itemId);
+    if (item == null) {
+      throw new LibraryException("Item not found");
+    }
+    if (item instanceof Book) {
       return bookService.returnBook(itemId);
-    } catch (LibraryException e) {
-      BookSeries series = seriesService.findSeriesByTitle(itemId);
-      if (series == null) {
-        throw new LibraryException("Item not found");
-      }
+    }
 
-      ILibraryItemState state = series.getState();
+    return withSeriesLocks((BookSeries) item, null, () -> {
+      ILibraryItemState state = item.getState();
       if (state.isAvailable()) {
         throw new LibraryException("Series is not checked out");
       }
 
-      state.returnItem();
-      return series;
+      state.returnItem(lending);
+      return item;
+    });
+  }
+
+  // The with...Locks methods run an action while holding every stripe the named
+  // operation takes, so work that must be ordered with it, such as journaling
+  // it, happens under the same locks. Stripes are reentrant, so the action may
+  // call the operation itself
+  public <T> T withLocks(List<String> keys, Supplier<T> action) {
+    return lockManager.withLocks(keys, action);
+  }
+
+  public <T> T withCheckoutLocks(String itemId, String borrowerId, Supplier<T> action) {
+    ILibraryItem item = itemResolver.resolve(itemId);
+    String borrowerKey = LockManager.borrowerKey(borrowerId);
+    if (item instanceof BookSeries) {
+      return withSeriesLocks((BookSeries) item, borrowerKey, action);
+    }
+    return lockManager.withLocks(List.of(LockManager.bookKey(itemId), borrowerKey), action);
+  }
+
+  public <T> T withReturnLocks(String itemId, Supplier<T> action) {
+    ILibraryItem item = itemResolver.resolve(itemId);
+    if (item instanceof BookSeries) {
+      return withSeriesLocks((BookSeries) item, null, action);
+    }
+    if (item == null) {
+      return action.get();
+    }
+
+    // As in BookService.returnBook, the borrower is confirmed once the stripes are held
+    while (true) {
+      Borrower borrower = item.getState().getBorrower();
+      List<String> keys = borrower == null
+          ? List.of(LockManager.bookKey(itemId))
+          : List.of(LockManager.bookKey(itemId), LockManager.borrowerKey(borrower.getId()));
+      boolean[] current = new boolean[1];
+      T result = lockManager.withLocks(keys, () -> {
+        current[0] = item.getState().getBorrower() == borrower;
+        return current[0] ? action.get() : null;
+      });
+      if (current[0]) {
+        return result;
+      }
+    }
+  }
+
+  // A series transition touches the series and every member book. Members are
+  // read before any stripe is held, so a book can join in between; members are
+  // only ever added, so once the series stripe is held a longer member list
+  // means the keys are stale and the locks are taken again
+  private <T> T withSeriesLocks(BookSeries series, String borrowerKey, Supplier<T> action) {
+    while (true) {
+      List<ILibraryItem> members = new ArrayList<>(series.getItems());
+      List<String> keys = new ArrayList<>(members.size() + 2);
+      keys.add(LockManager.keyOf(series));
+      members.forEach(member -> keys.add(LockManager.keyOf(member)));
+      if (borrowerKey != null) {
+        keys.add(borrowerKey);
+      }
+
+      boolean[] current = new boolean[1];
+      T result = lockManager.withLocks(keys, () -> {
+        current[0] = series.getItems().size() == members.size();
+        return current[0] ? action.get() : null;
+      });
+      if (current[0]) {
+        return result;
+      }
     }
   }
 
+  // Loans and series membership only change under stripes, so with every stripe
+  // held the captured borrowers, books, series and loans agree with each other.
+  // Only the in-memory capture holds the stripes, not the disk write
+  public void writeSnapshot(Path path) {
+    byte[] image = lockManager.withAllLocks(() -> LibrarySnapshot.capture(database));
+    LibrarySnapshot.save(image, path);
+  }
+
   @Override
   public List<String> getBorrowerNotifications(String borrowerId) {
     return borrowerService.getBorrowerNotifications(borrowerId);
@@ -147,6 +295,15 @@ public class LibraryFacade implements ILibraryFacade {
     borrowerService.clearBorrowerNotifications(borrowerId);
   }
 
+  @Override
+  public void subscribeToItem(String itemId, ILibraryObserver observer) {
+    ILibraryItem item = itemResolver.resolve(itemId);
+    if (item == null) {
+      throw new LibraryException("Item not found");
+    }
+    lending.getEventBus().subscribe(item, observer);
+  }
+
   @Override
   public void checkAllDueDates() {
     bookService.checkAllDueDates();
@@ -0,0 +1,122 @@
+package service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import domain.models.Book;
+import domain.models.BookSeries;
+import domain.models.ILibraryItem;
+
+// A fixed set of lock stripes keyed by ISBN, borrower ID or series title. An
+// operation that spans several entities takes all their stripes at once, always
+// in ascending stripe order, so two operations can never wait on each other in a
+// cycle. Operations on unrelated entities usually land on different stripes and
+// run in parallel
+public class LockManager {
+  public static final int DEFAULT_STRIPES = 64;
+
+  private final ReentrantLock[] stripes;
+  private final int mask;
+
+  public LockManager() {
+    this(DEFAULT_STRIPES);
+  }
+
+  public LockManager(int stripeCount) {
+    if (stripeCount <= 0) {
+      throw new IllegalArgumentException("Stripe count must be positive");
+    }
+    // Round up to a power of two so a stripe is picked with a mask
+    int size = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+    this.stripes = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    this.mask = size - 1;
+  }
+
+  public static String bookKey(String isbn) {
+    return "isbn:" + isbn;
+  }
+
+  public static String borrowerKey(String borrowerId) {
+    return "borrower:" + borrowerId;
+  }
+
+  public static String seriesKey(String title) {
+    return "series:" + title;
+  }
+
+  public static String keyOf(ILibraryItem item) {
+    if (item instanceof Book) {
+      return bookKey(((Book) item).getIsbn());
+    }
+    if (item instanceof BookSeries) {
+      return seriesKey(item.getTitle());
+    }
+    throw new IllegalArgumentException("Unsupported item: " + item);
+  }
+
+  // Runs the action with every stripe for the keys held and returns its result
+  public <T> T withLocks(Collection<String> keys, Supplier<T> action) {
+    int[] indexes = new int[keys.size()];
+    int count = 0;
+    for (String key : keys) {
+      indexes[count++] = stripeOf(key);
+    }
+    Arrays.sort(indexes);
+
+    int distinct = 0;
+    for (int i = 0; i < count; i++) {
+      if (distinct == 0 || indexes[distinct - 1] != indexes[i]) {
+        indexes[distinct++] = indexes[i];
+      }
+    }
+
+    int acquired = 0;
+    try {
+      for (; acquired < distinct; acquired++) {
+        stripes[indexes[acquired]].lock();
+      }
+      return action.get();
+    } finally {
+      release(indexes, acquired);
+    }
+  }
+
+  public void withLocks(Collection<String> keys, Runnable action) {
+    withLocks(keys, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  // Runs the action holding every stripe, so no locked operation is in progress
+  // or can start until it returns
+  public <T> T withAllLocks(Supplier<T> action) {
+    int acquired = 0;
+    try {
+      for (; acquired < stripes.length; acquired++) {
+        stripes[acquired].lock();
+      }
+      return action.get();
+    } finally {
+      for (int i = acquired - 1; i >= 0; i--) {
+        stripes[i].unlock();
+      }
+    }
+  }
+
+  private int stripeOf(String key) {
+    int hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  private void release(int[] indexes, int count) {
+    for (int i = count - 1; i >= 0; i--) {
+      stripes[indexes[i]].unlock();
+    }
+  }
+}
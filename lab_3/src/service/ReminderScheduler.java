@@ -0,0 +1,105 @@
+package service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import domain.models.ILibraryItem;
+import domain.models.states.LendingContext;
+import service.interfaces.IReminderScheduler;
+
+// Runs due-date checks on a fixed cadence outside the request path. Each sweep
+// reads the date once from its library's clock, publishes the notices that are due, then
+// drains the event bus, delivering each recipient's notices as a separate task on
+// a small pool of platform threads started with the scheduler
+public class ReminderScheduler implements IReminderScheduler {
+  private static final int MAX_DELIVERY_THREADS = 4;
+
+  private final LendingContext lending;
+  private final Duration cadence;
+  private ScheduledExecutorService ticker;
+  private ExecutorService delivery;
+
+  public ReminderScheduler(LendingContext lending, Duration cadence) {
+    this.lending = lending;
+    this.cadence = cadence;
+  }
+
+  @Override
+  public synchronized void start() {
+    if (ticker != null) {
+      return;
+    }
+    ExecutorService pool = newDeliveryPool();
+    delivery = pool;
+    ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "reminder-scheduler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    ticker.scheduleAtFixedRate(() -> sweepQuietly(pool), 0, cadence.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (ticker == null) {
+      return;
+    }
+    ticker.shutdown();
+    try {
+      ticker.awaitTermination(cadence.toMillis() + 1000, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    delivery.shutdown();
+    ticker = null;
+    delivery = null;
+  }
+
+  // Runs one sweep on the calling thread and returns once every notice is delivered.
+  // Without a running scheduler the sweep gets a pool of its own
+  @Override
+  public int flush() {
+    ExecutorService pool;
+    synchronized (this) {
+      pool = delivery;
+    }
+    if (pool != null) {
+      return sweep(pool);
+    }
+    pool = newDeliveryPool();
+    try {
+      return sweep(pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void sweepQuietly(ExecutorService pool) {
+    try {
+      sweep(pool);
+    } catch (RuntimeException e) {
+      System.err.println("Reminder sweep failed: " + e.getMessage());
+    }
+  }
+
+  private int sweep(ExecutorService pool) {
+    LocalDate today = lending.today();
+    for (ILibraryItem item : lending.getDueDateQueue().itemsNeedingNotice(today)) {
+      item.getState().checkDueDate(today, lending);
+    }
+    return lending.getEventBus().dispatch(pool);
+  }
+
+  private static ExecutorService newDeliveryPool() {
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_DELIVERY_THREADS);
+    return Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "reminder-delivery");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
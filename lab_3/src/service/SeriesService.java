@@ -12,10 +12,17 @@ import util.LibraryException;
 public class SeriesService implements ISeriesService {
   private final ILibraryDatabase database;
   private final IBookService bookService;
+  private final LockManager lockManager;
 
   public SeriesService(ILibraryDatabase database, IBookService bookService) {
+    this(database, bookService, new LockManager());
+  }
+
+  public SeriesService(ILibraryDatabase database, IBookService bookService,
+      LockManager lockManager) {
     this.database = database;
     this.bookService = bookService;
+    this.lockManager = lockManager;
   }
 
   @Override
@@ -40,7 +47,13 @@ public class SeriesService implements ISeriesService {
       throw new LibraryException("Book not found");
     }
 
-    series.addItem(book);
+    // A checked-out series could not be returned with an available member in it
+    lockManager.withLocks(List.of(LockManager.seriesKey(seriesTitle), LockManager.bookKey(isbn)), () -> {
+      if (!series.getState().isAvailable()) {
+        throw new LibraryException("Cannot add a book to a checked-out series");
+      }
+      series.addItem(book);
+    });
   }
 
   @Override
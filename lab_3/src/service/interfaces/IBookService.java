@@ -1,12 +1,15 @@
 package service.interfaces;
 
 import domain.models.Book;
+import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IBookService {
-  Book addBook(String title, String author, String isbn, int year, BookType type);
+  Book addBook(String title, String author, String isbn, int year,
+      BookType type, BookFormat format);
 
   Book checkoutBook(String isbn, String borrowerId, double loanPeriodDays);
 
@@ -14,10 +17,22 @@ public interface IBookService {
 
   List<Book> searchBooks(String searchTerm);
 
+  List<Book> searchBooks(String searchTerm, int offset, int limit);
+
+  List<String> autocomplete(String prefix, int limit);
+
   Book findBookByIsbn(String isbn);
 
   List<Book> getAllBooks();
 
+  List<Book> findBooksByFormat(BookFormat format);
+
+  int countBooks();
+
+  List<Book> getBooks(int offset, int limit);
+
+  Stream<Book> streamBooks();
+
   Book createBookCopy(String existingIsbn, String newIsbn, int year);
 
   void checkAllDueDates();
@@ -0,0 +1,16 @@
+package service.interfaces;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import domain.models.Book;
+import service.ImportReport;
+
+public interface IBulkImportService {
+  ImportReport importCatalog(Path file);
+
+  // insertBatch is given each validated batch and the action that stores it, and
+  // must run that action, so a caller can wrap the insert, e.g. to journal it
+  ImportReport importCatalog(Path file, BiConsumer<List<Book>, Runnable> insertBatch);
+}
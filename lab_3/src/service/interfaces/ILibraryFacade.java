@@ -3,8 +3,13 @@ package service.interfaces;
 import domain.models.*;
 import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
+import domain.observer.ILibraryObserver;
+import service.ImportReport;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 public interface ILibraryFacade {
   Book addBook(String title, String author, String isbn, int year,
@@ -14,10 +19,26 @@ public interface ILibraryFacade {
 
   List<Book> searchBooks(String searchTerm);
 
+  List<Book> searchBooks(String searchTerm, int offset, int limit);
+
+  List<String> autocomplete(String prefix, int limit);
+
   List<Book> getAllBooks();
 
+  List<Book> findBooksByFormat(BookFormat format);
+
+  int countBooks();
+
+  List<Book> getBooks(int offset, int limit);
+
+  Stream<Book> streamBooks();
+
   Book createBookCopy(String existingIsbn, String newIsbn, int year);
 
+  ImportReport importCatalog(Path file);
+
+  ImportReport importCatalog(Path file, BiConsumer<List<Book>, Runnable> insertBatch);
+
   BookSeries createSeries(String title);
 
   void addBookToSeries(String seriesTitle, String isbn);
@@ -36,5 +57,7 @@ public interface ILibraryFacade {
 
   void clearBorrowerNotifications(String borrowerId);
 
+  void subscribeToItem(String itemId, ILibraryObserver observer);
+
   void checkAllDueDates();
 }
\ No newline at end of file
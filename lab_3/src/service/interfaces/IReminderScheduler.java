@@ -0,0 +1,9 @@
+package service.interfaces;
+
+public interface IReminderScheduler {
+  void start();
+
+  void stop();
+
+  int flush();
+}
@@ -1,21 +1,22 @@
 package ui;
 
+import java.nio.file.Path;
 import java.util.List;
 
 import domain.models.Book;
 import domain.models.BookSeries;
 import domain.models.Borrower;
 import domain.models.ILibraryItem;
-import domain.models.decorators.DigitalBook;
-import domain.models.decorators.HardcoverBook;
-import domain.models.decorators.PaperbackBook;
 import domain.models.enums.BookFormat;
 import domain.models.enums.BookType;
 import domain.models.states.ILibraryItemState;
+import service.ImportReport;
 import service.interfaces.ILibraryFacade;
 import util.LibraryException;
 
 public class ConsoleUI {
+  private static final int PAGE_SIZE = 10;
+
   private final ILibraryFacade libraryFacade;
 
   public ConsoleUI(ILibraryFacade libraryFacade) {
@@ -26,11 +27,9 @@ public class ConsoleUI {
     System.out.println("Welcome to Library Management System!");
 
     while (true) {
-      libraryFacade.checkAllDueDates();
-
       try {
         displayMenu();
-        int choice = InputHandler.readInt("Enter your choice: ", 1, 13);
+        int choice = InputHandler.readInt("Enter your choice: ", 1, 14);
 
         switch (choice) {
           case 1 -> handleViewAllBooks();
@@ -45,7 +44,8 @@ public class ConsoleUI {
           case 10 -> handleReturnItem();
           case 11 -> handleViewNotifications();
           case 12 -> handleClearNotifications();
-          case 13 -> exit();
+          case 13 -> handleImportCatalog();
+          case 14 -> exit();
         }
       } catch (LibraryException e) {
         System.out.println("\nError: " + e.getMessage());
@@ -72,7 +72,8 @@ public class ConsoleUI {
     System.out.println("10. Return Item");
     System.out.println("11. View Notifications");
     System.out.println("12. Clear Notifications");
-    System.out.println("13. Exit");
+    System.out.println("13. Import Catalog");
+    System.out.println("14. Exit");
   }
 
   private void exit() {
@@ -222,13 +223,30 @@ public class ConsoleUI {
 
   private void handleViewAllBooks() {
     System.out.println("\n=== All Books in Library ===");
-    List<Book> books = libraryFacade.getAllBooks();
+    int total = libraryFacade.countBooks();
 
-    if (books.isEmpty()) {
+    if (total == 0) {
       System.out.println("No books in the library.");
-    } else {
-      System.out.println("\nTotal books: " + books.size());
-      books.forEach(this::displayBook);
+      return;
+    }
+
+    System.out.println("\nTotal books: " + total);
+    int offset = 0;
+    while (true) {
+      List<Book> page = libraryFacade.getBooks(offset, PAGE_SIZE);
+      page.forEach(this::displayBook);
+      offset += page.size();
+
+      if (page.isEmpty() || offset >= total) {
+        break;
+      }
+
+      System.out.printf("%nShowing %d of %d books%n", offset, total);
+      System.out.println("1. Next page");
+      System.out.println("2. Back to menu");
+      if (InputHandler.readInt("Enter choice: ", 1, 2) == 2) {
+        break;
+      }
     }
   }
 
@@ -277,6 +295,19 @@ public class ConsoleUI {
     displayBook(newBook);
   }
 
+  private void handleImportCatalog() {
+    System.out.println("\n=== Import Catalog ===");
+    System.out.println("Columns: title, author, isbn, year, type, format (.csv or .tsv)");
+    String file = InputHandler.readString("Enter catalog file path: ");
+
+    ImportReport report = libraryFacade.importCatalog(Path.of(file));
+    System.out.println("\nBooks imported: " + report.getImportedCount());
+    if (!report.getErrors().isEmpty()) {
+      System.out.println("Rows skipped: " + report.getErrors().size());
+      report.getErrors().forEach(System.out::println);
+    }
+  }
+
   private void handleAddBorrower() {
     System.out.println("\n=== Add New Borrower ===");
     String id = InputHandler.readBorrowerId("Enter borrower ID (e.g., B001): ");
@@ -335,11 +366,12 @@ public class ConsoleUI {
   }
 
   private String getBookFormat(Book book) {
-    if (book instanceof HardcoverBook)
+    BookFormat format = book.getFormat();
+    if (format == BookFormat.HARDCOVER)
       return "Hardcover";
-    if (book instanceof PaperbackBook)
+    if (format == BookFormat.PAPERBACK)
       return "Paperback";
-    if (book instanceof DigitalBook)
+    if (format == BookFormat.DIGITAL)
       return "Digital";
     return "Unknown";
   }
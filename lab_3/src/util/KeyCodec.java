@@ -0,0 +1,66 @@
+package util;
+
+// Packs identifiers into primitives so indexes can key on them without
+// allocating. An ISBN "ddd-dddddddddd" becomes prefix * 10^10 + body, and a
+// borrower ID "Lddd" becomes (letter - 'A') * 1000 + digits. Text that is not in
+// the expected shape encodes to -1
+public final class KeyCodec {
+  public static final long INVALID_ISBN = -1L;
+  public static final int INVALID_BORROWER_ID = -1;
+
+  private static final int ISBN_LENGTH = 14;
+  private static final int ISBN_SEPARATOR_INDEX = 3;
+  private static final long ISBN_BODY_RANGE = 10_000_000_000L;
+  private static final int ID_LENGTH = 4;
+  private static final int ID_NUMBER_RANGE = 1000;
+
+  private KeyCodec() {
+  }
+
+  public static long encodeIsbn(String isbn) {
+    if (isbn == null || isbn.length() != ISBN_LENGTH || isbn.charAt(ISBN_SEPARATOR_INDEX) != '-') {
+      return INVALID_ISBN;
+    }
+    long value = 0;
+    for (int i = 0; i < ISBN_LENGTH; i++) {
+      if (i == ISBN_SEPARATOR_INDEX) {
+        continue;
+      }
+      char c = isbn.charAt(i);
+      if (c < '0' || c > '9') {
+        return INVALID_ISBN;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  public static String decodeIsbn(long key) {
+    long prefix = key / ISBN_BODY_RANGE;
+    long body = key % ISBN_BODY_RANGE;
+    return String.format("%03d-%010d", prefix, body);
+  }
+
+  public static int encodeBorrowerId(String id) {
+    if (id == null || id.length() != ID_LENGTH) {
+      return INVALID_BORROWER_ID;
+    }
+    char letter = id.charAt(0);
+    if (letter < 'A' || letter > 'Z') {
+      return INVALID_BORROWER_ID;
+    }
+    int number = 0;
+    for (int i = 1; i < ID_LENGTH; i++) {
+      char c = id.charAt(i);
+      if (c < '0' || c > '9') {
+        return INVALID_BORROWER_ID;
+      }
+      number = number * 10 + (c - '0');
+    }
+    return (letter - 'A') * ID_NUMBER_RANGE + number;
+  }
+
+  public static String decodeBorrowerId(int key) {
+    return String.format("%c%03d", (char) ('A' + key / ID_NUMBER_RANGE), key % ID_NUMBER_RANGE);
+  }
+}
@@ -0,0 +1,42 @@
+package util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+// Clock that only moves when told to, for tests and time-compressed lending simulations
+public class SimulationClock extends Clock {
+  private final ZoneId zone;
+  private volatile Instant instant;
+
+  public SimulationClock(Instant start, ZoneId zone) {
+    this.instant = start;
+    this.zone = zone;
+  }
+
+  public void advance(Duration duration) {
+    synchronized (this) {
+      instant = instant.plus(duration);
+    }
+  }
+
+  public void set(Instant instant) {
+    this.instant = instant;
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return new SimulationClock(instant, zone);
+  }
+
+  @Override
+  public Instant instant() {
+    return instant;
+  }
+}
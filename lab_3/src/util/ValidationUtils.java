@@ -1,19 +1,49 @@
 package util;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Hand-written scanners instead of String.matches, which compiles a new regex per call
 public class ValidationUtils {
+  private static final String INVALID_ISBN = "Invalid ISBN format. Use XXX-XXXXXXXXXX format";
+  private static final String INVALID_ID =
+      "Invalid ID format. Use one uppercase letter followed by 3 digits (e.g., B001)";
+  private static final String EMPTY_NAME = "Name cannot be empty";
+  private static final int ISBN_LENGTH = 14;
+  private static final int ISBN_SEPARATOR_INDEX = 3;
+  private static final int ID_LENGTH = 4;
+
+  private static volatile int currentYear;
+  private static volatile long nextYearStartMillis;
+
   public static void validateIsbn(String isbn) {
-    if (isbn == null || !isbn.matches("\\d{3}-\\d{10}")) {
-      throw new LibraryException("Invalid ISBN format. Use XXX-XXXXXXXXXX format");
+    if (!isValidIsbn(isbn)) {
+      throw new LibraryException(INVALID_ISBN);
+    }
+  }
+
+  public static boolean isValidIsbn(String isbn) {
+    if (isbn == null || isbn.length() != ISBN_LENGTH || isbn.charAt(ISBN_SEPARATOR_INDEX) != '-') {
+      return false;
+    }
+    for (int i = 0; i < ISBN_LENGTH; i++) {
+      if (i != ISBN_SEPARATOR_INDEX && !isDigit(isbn.charAt(i))) {
+        return false;
+      }
     }
+    return true;
   }
 
   public static void validateYear(int year) {
-    int currentYear = java.time.Year.now().getValue();
-    if (year < 1000 || year > currentYear) {
-      throw new LibraryException("Invalid year. Must be between 1000 and " + currentYear);
+    if (!isValidYear(year)) {
+      throw new LibraryException("Invalid year. Must be between 1000 and " + currentYear());
     }
   }
 
+  public static boolean isValidYear(int year) {
+    return year >= 1000 && year <= currentYear();
+  }
+
   public static void validateLoanPeriod(int days) {
     if (days <= 0 || days > 30) {
       throw new LibraryException("Loan period must be between 1 and 30 days");
@@ -21,14 +51,66 @@ public class ValidationUtils {
   }
 
   public static void validateName(String name) {
-    if (name == null || name.trim().isEmpty()) {
-      throw new LibraryException("Name cannot be empty");
+    if (!isValidName(name)) {
+      throw new LibraryException(EMPTY_NAME);
     }
   }
 
+  public static boolean isValidName(String name) {
+    return name != null && !name.isBlank();
+  }
+
   public static void validateId(String id) {
-    if (id == null || !id.matches("[A-Z]\\d{3}")) {
-      throw new LibraryException("Invalid ID format. Use one uppercase letter followed by 3 digits (e.g., B001)");
+    if (!isValidId(id)) {
+      throw new LibraryException(INVALID_ID);
+    }
+  }
+
+  public static boolean isValidId(String id) {
+    if (id == null || id.length() != ID_LENGTH) {
+      return false;
+    }
+    char letter = id.charAt(0);
+    if (letter < 'A' || letter > 'Z') {
+      return false;
+    }
+    for (int i = 1; i < ID_LENGTH; i++) {
+      if (!isDigit(id.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Checks every book field without throwing; returns the first problem or null.
+  // Meant for bulk ingest, where most rows are valid and exceptions would dominate
+  public static String validateAll(String title, String author, String isbn, int year) {
+    if (!isValidIsbn(isbn)) {
+      return INVALID_ISBN;
+    }
+    if (!isValidYear(year)) {
+      return "Invalid year. Must be between 1000 and " + currentYear();
+    }
+    if (!isValidName(title) || !isValidName(author)) {
+      return EMPTY_NAME;
+    }
+    return null;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  // The year only changes at New Year, so it is looked up again only after that instant
+  private static int currentYear() {
+    if (System.currentTimeMillis() >= nextYearStartMillis) {
+      LocalDate today = LocalDate.now();
+      currentYear = today.getYear();
+      nextYearStartMillis = LocalDate.of(today.getYear() + 1, 1, 1)
+          .atStartOfDay(ZoneId.systemDefault())
+          .toInstant()
+          .toEpochMilli();
     }
+    return currentYear;
   }
-}
\ No newline at end of file
+}